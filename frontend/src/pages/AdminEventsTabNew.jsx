@@ -19,6 +19,7 @@ import { authHeaders } from "../services/api.js";
 
 export default function AdminEventsTabNew() {
   const [events, setEvents] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
   const [searchQuery, setSearchQuery] = useState("");
   const [statusFilter, setStatusFilter] = useState("");
@@ -31,18 +32,23 @@ export default function AdminEventsTabNew() {
   const [deleteModal, setDeleteModal] = useState(null);
 
   useEffect(() => {
-    loadEvents();
-  }, [statusFilter]);
+    const t = setTimeout(() => loadEvents(), 300); // debounce typing in the search box
+    return () => clearTimeout(t);
+  }, [statusFilter, searchQuery]);
 
-  const loadEvents = async () => {
-    setLoading(true);
+  // the server pages the queue; pass the X-Next-Cursor of the last page to append the next one
+  const loadEvents = async (cursor) => {
+    if (!cursor) setLoading(true);
     const headers = authHeaders();
     try {
       const params = new URLSearchParams();
       if (statusFilter) params.append("status", statusFilter);
+      if (searchQuery) params.append("query", searchQuery);
+      if (cursor) params.append("after", cursor);
       
       const res = await axios.get(`/api/admin/events?${params}`, { headers });
-      setEvents(res.data);
+      setEvents((prev) => (cursor ? [...prev, ...res.data] : res.data));
+      setNextCursor(res.headers["x-next-cursor"] || null);
     } catch (error) {
       console.error("Failed to load events:", error);
       toast.error("Failed to load events");
@@ -126,15 +132,16 @@ export default function AdminEventsTabNew() {
     }
   };
 
-  const filteredEvents = events.filter((event) => {
-    if (!searchQuery) return true;
-    const query = searchQuery.toLowerCase();
-    return (
-      event.title?.toLowerCase().includes(query) ||
-      event.category?.toLowerCase().includes(query) ||
-      event.location?.toLowerCase().includes(query)
-    );
-  });
+  // queue rows only carry an excerpt of the description, so edit the full event
+  const openEdit = async (event) => {
+    try {
+      const res = await axios.get(`/api/events/${event.id}`, { headers: authHeaders() });
+      setEditModal(res.data);
+    } catch (error) {
+      console.error("Failed to load event:", error);
+      toast.error("Failed to load event");
+    }
+  };
 
   const statusBadge = (status) => {
     const colors = {
@@ -213,7 +220,7 @@ export default function AdminEventsTabNew() {
       {/* Events List */}
       {loading ? (
         <LoadingSkeleton type="card" count={3} />
-      ) : filteredEvents.length === 0 ? (
+      ) : events.length === 0 ? (
         <div className="bg-white rounded-xl shadow-sm p-12 text-center">
           <Calendar className="w-16 h-16 text-gray-300 mx-auto mb-4" />
           <h3 className="text-lg font-semibold text-gray-900 mb-2">No events found</h3>
@@ -221,7 +228,7 @@ export default function AdminEventsTabNew() {
         </div>
       ) : (
         <div className="grid grid-cols-1 gap-4">
-          {filteredEvents.map((event) => (
+          {events.map((event) => (
             <div
               key={event.id}
               className="bg-white rounded-xl shadow-sm p-6 hover:shadow-md transition-shadow"
@@ -234,7 +241,7 @@ export default function AdminEventsTabNew() {
                     {statusBadge(event.approvalStatus)}
                   </div>
 
-                  <p className="text-gray-600 line-clamp-2">{event.description}</p>
+                  <p className="text-gray-600 line-clamp-2">{event.excerpt}</p>
 
                   <div className="flex flex-wrap gap-4 text-sm text-gray-600">
                     <div className="flex items-center gap-2">
@@ -281,7 +288,7 @@ export default function AdminEventsTabNew() {
                     </>
                   )}
                   <button
-                    onClick={() => setEditModal(event)}
+                    onClick={() => openEdit(event)}
                     className="flex items-center gap-2 px-4 py-2 bg-blue-600 text-white rounded-lg hover:bg-blue-700 transition-colors font-medium"
                   >
                     <Edit2 className="w-4 h-4" />
@@ -298,6 +305,14 @@ export default function AdminEventsTabNew() {
               </div>
             </div>
           ))}
+          {nextCursor && (
+            <button
+              onClick={() => loadEvents(nextCursor)}
+              className="px-4 py-2 bg-gray-100 text-gray-700 rounded-lg hover:bg-gray-200 transition-colors font-medium"
+            >
+              Load more
+            </button>
+          )}
         </div>
       )}
 
@@ -1,15 +1,19 @@
 import { useEffect, useState } from "react";
 import { adminListUsers, adminSetActive, adminSetBan, adminSetRole } from "../services/api.js";
 
+const PAGE_SIZE = 50;
+
 export default function AdminUsersTab() {
   const [users, setUsers] = useState([]);
+  const [total, setTotal] = useState(0);
   const [state, setState] = useState({ loading: true, error: "" });
 
   async function load() {
     setState({ loading: true, error: "" });
     try {
-      const data = await adminListUsers();
-      setUsers(data);
+      const data = await adminListUsers({ page: 0, size: PAGE_SIZE });
+      setUsers(data.users);
+      setTotal(data.total);
       setState({ loading: false, error: "" });
     } catch (e) {
       setState({ loading: false, error: e?.message || "Failed" });
@@ -18,17 +22,27 @@ export default function AdminUsersTab() {
 
   useEffect(() => { load(); }, []);
 
+  async function loadMore() {
+    try {
+      const data = await adminListUsers({ page: Math.floor(users.length / PAGE_SIZE), size: PAGE_SIZE });
+      setUsers(prev => [...prev, ...data.users]);
+      setTotal(data.total);
+    } catch (e) {
+      setState({ loading: false, error: e?.message || "Failed" });
+    }
+  }
+
+  // patch the changed row in place rather than reloading every page shown
+  const replace = (updated) => setUsers(prev => prev.map(u => (u.id === updated.id ? updated : u)));
+
   async function onRole(id, role) {
-    await adminSetRole(id, role);
-    await load();
+    replace(await adminSetRole(id, role));
   }
   async function onActive(id, active) {
-    await adminSetActive(id, active);
-    await load();
+    replace(await adminSetActive(id, active));
   }
   async function onBan(id, banned) {
-    await adminSetBan(id, banned);
-    await load();
+    replace(await adminSetBan(id, banned));
   }
 
   if (state.loading) return <p className="badge">Loading users…</p>;
@@ -36,7 +50,7 @@ export default function AdminUsersTab() {
 
   return (
     <article className="card" style={{ padding: 12 }}>
-      <h3 className="m-0" style={{ marginBottom: 8 }}>Users</h3>
+      <h3 className="m-0" style={{ marginBottom: 8 }}>Users ({total})</h3>
       <div style={{ display: "grid", gap: 8 }}>
         {users.map(u => (
           <div key={u.id} className="card" style={{ padding: 12 }}>
@@ -66,6 +80,9 @@ export default function AdminUsersTab() {
             </div>
           </div>
         ))}
+        {users.length < total && (
+          <button className="btn" onClick={loadMore}>Load more</button>
+        )}
       </div>
     </article>
   );
@@ -14,8 +14,11 @@ import Modal, { ModalFooter, ModalButton } from "../components/Modal.jsx";
 import LoadingSkeleton from "../components/LoadingSkeleton.jsx";
 import { authHeaders } from "../services/api.js";
 
+const PAGE_SIZE = 50;
+
 export default function AdminUsersTabNew() {
   const [users, setUsers] = useState([]);
+  const [total, setTotal] = useState(0);
   const [loading, setLoading] = useState(true);
   const [searchQuery, setSearchQuery] = useState("");
   const [roleFilter, setRoleFilter] = useState("");
@@ -31,10 +34,11 @@ export default function AdminUsersTabNew() {
 
   useEffect(() => {
     loadUsers();
-  }, []);
+  }, [roleFilter, statusFilter]);
 
-  const loadUsers = async () => {
-    setLoading(true);
+  // the server pages the results and sends the full count in X-Total-Count; page > 0 appends
+  const loadUsers = async (page = 0) => {
+    if (page === 0) setLoading(true);
     const headers = authHeaders();
     
     try {
@@ -42,9 +46,12 @@ export default function AdminUsersTabNew() {
       if (searchQuery) params.append("q", searchQuery);
       if (roleFilter) params.append("role", roleFilter);
       if (statusFilter) params.append("status", statusFilter);
+      params.append("page", page);
+      params.append("size", PAGE_SIZE);
       
       const res = await axios.get(`/api/admin/users/search?${params}`, { headers });
-      setUsers(res.data);
+      setUsers((prev) => (page > 0 ? [...prev, ...res.data] : res.data));
+      setTotal(Number(res.headers["x-total-count"] ?? res.data.length));
     } catch (error) {
       console.error("Failed to load users:", error);
       toast.error("Failed to load users");
@@ -74,20 +81,24 @@ export default function AdminUsersTabNew() {
     }
   };
 
+  // patch the changed row in place so the pages already loaded stay on screen
+  const replaceUser = (updated) =>
+    setUsers((prev) => prev.map((u) => (u.id === updated.id ? updated : u)));
+
   const handleBanToggle = async () => {
     if (!banModal) return;
     const headers = authHeaders();
     const newBannedStatus = !banModal.banned;
     
     try {
-      await axios.patch(
+      const res = await axios.patch(
         `/api/admin/users/${banModal.id}/ban`,
         { banned: newBannedStatus },
         { headers }
       );
       toast.success(newBannedStatus ? "User banned" : "User unbanned");
       setBanModal(null);
-      loadUsers();
+      replaceUser(res.data);
     } catch (error) {
       console.error("Failed to update user:", error);
       toast.error("Failed to update user status");
@@ -99,7 +110,7 @@ export default function AdminUsersTabNew() {
     const headers = authHeaders();
     
     try {
-      await axios.patch(
+      const res = await axios.patch(
         `/api/admin/users/${roleModal.id}/role`,
         { role: newRole },
         { headers }
@@ -107,7 +118,7 @@ export default function AdminUsersTabNew() {
       toast.success("User role updated");
       setRoleModal(null);
       setNewRole("");
-      loadUsers();
+      replaceUser(res.data);
     } catch (error) {
       console.error("Failed to update role:", error);
       toast.error("Failed to update user role");
@@ -163,10 +174,7 @@ export default function AdminUsersTabNew() {
           <div className="flex gap-2">
             <select
               value={roleFilter}
-              onChange={(e) => {
-                setRoleFilter(e.target.value);
-                loadUsers();
-              }}
+              onChange={(e) => setRoleFilter(e.target.value)}
               className="px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500"
             >
               <option value="">All Roles</option>
@@ -177,10 +185,7 @@ export default function AdminUsersTabNew() {
 
             <select
               value={statusFilter}
-              onChange={(e) => {
-                setStatusFilter(e.target.value);
-                loadUsers();
-              }}
+              onChange={(e) => setStatusFilter(e.target.value)}
               className="px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500"
             >
               <option value="">All Status</option>
@@ -271,6 +276,19 @@ export default function AdminUsersTabNew() {
               ))}
             </tbody>
           </table>
+          <div className="flex items-center justify-between px-6 py-3 border-t border-gray-200">
+            <span className="text-sm text-gray-600">
+              Showing {users.length} of {total} users
+            </span>
+            {users.length < total && (
+              <button
+                onClick={() => loadUsers(Math.floor(users.length / PAGE_SIZE))}
+                className="px-4 py-2 bg-gray-100 text-gray-700 rounded-lg hover:bg-gray-200 transition-colors font-medium"
+              >
+                Load more
+              </button>
+            )}
+          </div>
         </div>
       )}
 
@@ -678,7 +678,7 @@ export default function EventDetailPage() {
           {photos.map((p, idx) => (
             <figure key={p.id} className="gallery-item">
               <button className="gallery-thumb gallery-thumb--button" onClick={() => openLightbox(idx)} aria-label="View photo">
-                <img src={p.url} alt={p.originalFilename || "photo"} />
+                <img src={p.variants?.thumb ?? p.url} alt={p.originalFilename || "photo"} loading="lazy" />
               </button>
               <figcaption className="gallery-caption">
                 <span title={p.originalFilename} className="gallery-name">{p.originalFilename}</span>
@@ -702,7 +702,7 @@ export default function EventDetailPage() {
       {isLightboxOpen && photos[lightboxIdx] && (
         <div className="lightbox" role="dialog" aria-modal="true" onClick={closeLightbox}>
           <div className="lightbox__inner" onClick={(e) => e.stopPropagation()}>
-            <img className="lightbox__img" src={photos[lightboxIdx].url} alt={photos[lightboxIdx].originalFilename || "photo"} />
+            <img className="lightbox__img" src={photos[lightboxIdx].variants?.full ?? photos[lightboxIdx].url} alt={photos[lightboxIdx].originalFilename || "photo"} />
             <div className="lightbox__controls">
               <button className="btn" onClick={prevLightbox} aria-label="Previous">←</button>
               <button className="btn" onClick={closeLightbox} aria-label="Close">Close</button>
@@ -205,7 +205,7 @@ export async function cancelRsvpByEvent(eventId) {
 export async function listPhotos(eventId) {
   const res = await apiFetch(`/api/events/${eventId}/photos`);
   if (!res.ok) await readError(res);
-  return res.json(); // [{id, eventId, url, contentType, sizeBytes, originalFilename, createdAt}]
+  return res.json(); // [{id, eventId, url, variants: {thumb, medium, full}, contentType, sizeBytes, originalFilename, createdAt}]
 }
 
 export async function uploadPhotos(eventId, files) {
@@ -318,9 +318,11 @@ export async function getMyBadgeProgress() {
 }
 
 // ----- Admin API -----
-export async function adminListUsers() {
-  const res = await apiFetch("/api/admin/users");
-  return readJson(res);
+// one page of users; the server caps size and sends the full count in X-Total-Count
+export async function adminListUsers({ page = 0, size = 50 } = {}) {
+  const res = await apiFetch(`/api/admin/users?page=${page}&size=${size}`);
+  const users = await readJson(res);
+  return { users, total: Number(res.headers.get("X-Total-Count") ?? users.length) };
 }
 export async function adminSetActive(id, active) {
   const res = await apiFetch(`/api/admin/users/${id}/active`, {
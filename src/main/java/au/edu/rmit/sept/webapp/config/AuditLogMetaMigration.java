@@ -0,0 +1,53 @@
+package au.edu.rmit.sept.webapp.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Turns a MySQL {@code audit_log.meta} created as text into a JSON column. ddl-auto
+ * never retypes a column, and rows written before meta was structured (concatenated
+ * strings) aren't JSON objects: they are first wrapped as {@code {"text": ...}}, which
+ * is how they read back before. Runs after Hibernate has updated the schema and
+ * before the web server starts; a no-op once the column is JSON, and on other databases.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AuditLogMetaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogMetaMigration.class);
+
+    private final JdbcTemplate jdbc;
+
+    public AuditLogMetaMigration(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    void migrate() {
+        String product = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equals(product))
+            return;
+        List<String> type = jdbc.queryForList("""
+                select data_type from information_schema.columns
+                where table_schema = database() and table_name = 'audit_log' and column_name = 'meta'
+                """, String.class);
+        if (type.isEmpty() || "json".equalsIgnoreCase(type.get(0)))
+            return;
+
+        jdbc.update("update audit_log set meta = null where meta = ''");
+        int wrapped = jdbc.update("""
+                update audit_log set meta = json_object('text', meta)
+                where meta is not null
+                  and (case when json_valid(meta) then json_type(meta) <> 'OBJECT' else true end)
+                """);
+        jdbc.execute("alter table audit_log modify meta json");
+        log.info("audit_log.meta converted from {} to json ({} legacy rows wrapped)", type.get(0), wrapped);
+    }
+}
@@ -19,7 +19,7 @@ public class GlobalExceptionHandler {
             "error", ex.getStatusCode().toString()
         );
         
-        return new ResponseEntity<>(errorResponse, ex.getStatusCode());
+        return new ResponseEntity<>(errorResponse, ex.getHeaders(), ex.getStatusCode());
     }
     
     @ExceptionHandler(IllegalArgumentException.class)
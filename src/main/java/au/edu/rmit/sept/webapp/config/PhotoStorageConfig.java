@@ -0,0 +1,36 @@
+package au.edu.rmit.sept.webapp.config;
+
+import java.time.Clock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import au.edu.rmit.sept.webapp.service.LocalPhotoStorage;
+import au.edu.rmit.sept.webapp.service.PhotoStorage;
+import au.edu.rmit.sept.webapp.service.S3PhotoStorage;
+
+@Configuration
+public class PhotoStorageConfig {
+
+    @Bean
+    public PhotoStorage photoStorage(Clock clock,
+            @Value("${app.photos.storage:local}") String driver,
+            @Value("${app.uploadDir:uploads}") String uploadDir,
+            @Value("${app.photos.s3.endpoint:}") String endpoint,
+            @Value("${app.photos.s3.bucket:}") String bucket,
+            @Value("${app.photos.s3.region:us-east-1}") String region,
+            @Value("${app.photos.s3.accessKey:}") String accessKey,
+            @Value("${app.photos.s3.secretKey:}") String secretKey) {
+        switch (driver.trim().toLowerCase()) {
+            case "local":
+                return new LocalPhotoStorage(uploadDir);
+            case "s3":
+                if (endpoint.isBlank() || bucket.isBlank())
+                    throw new IllegalStateException("app.photos.s3.endpoint and app.photos.s3.bucket are required");
+                return new S3PhotoStorage(endpoint, bucket, region, accessKey, secretKey, clock);
+            default:
+                throw new IllegalStateException("Unknown app.photos.storage: " + driver + " (expected local or s3)");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package au.edu.rmit.sept.webapp.config;
+
+import au.edu.rmit.sept.webapp.service.RateLimitService;
+import au.edu.rmit.sept.webapp.service.RateLimitService.RouteClass;
+import au.edu.rmit.sept.webapp.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Applies IP (and, for authenticated writes, account) rate limits before the
+ * handler runs. Login/register also limit by the email in the body inside AuthApi,
+ * since the body is not parsed yet here.
+ * <p>
+ * Behind the ingress every request arrives from a proxy, so the client IP is taken
+ * from X-Forwarded-For: the right-most hop that is not one of {@code trustedProxies}.
+ * Requests that don't come from a trusted proxy are keyed on their own address, so
+ * a client can't pick its bucket by sending the header itself.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    // Tomcat's default internal proxies: private ranges and loopback
+    private static final String PRIVATE_ADDRESSES = "10\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|192\\.168\\.\\d{1,3}\\.\\d{1,3}"
+            + "|169\\.254\\.\\d{1,3}\\.\\d{1,3}|127\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|172\\.(1[6-9]|2[0-9]|3[0-1])\\.\\d{1,3}\\.\\d{1,3}"
+            + "|0:0:0:0:0:0:0:1|::1";
+
+    private final RateLimitService rateLimits;
+    private final Pattern trustedProxies;
+
+    @Value("${app.jwt.secret:dev-super-secret-change-me}")
+    private String jwtSecret;
+
+    public RateLimitInterceptor(RateLimitService rateLimits,
+            @Value("${app.rateLimit.trustedProxies:}") String trustedProxies) {
+        this.rateLimits = rateLimits;
+        this.trustedProxies = Pattern.compile(trustedProxies.isBlank() ? PRIVATE_ADDRESSES : trustedProxies);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"POST".equalsIgnoreCase(request.getMethod()))
+            return true;
+        RouteClass routeClass = request.getRequestURI().startsWith("/api/auth/") ? RouteClass.AUTH : RouteClass.WRITE;
+        rateLimits.enforceForIp(routeClass, clientIp(request), response);
+        if (routeClass == RouteClass.WRITE)
+            rateLimits.enforceForAccount(routeClass, subjectOrNull(request), response);
+        return true;
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        String ip = request.getRemoteAddr();
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded == null || !trustedProxies.matcher(ip).matches())
+            return ip;
+        // each proxy appends the address it received from; walk back to the first outsider
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty())
+                continue;
+            ip = hop;
+            if (!trustedProxies.matcher(hop).matches())
+                break;
+        }
+        return ip;
+    }
+
+    // only a verified subject may consume an account bucket, otherwise anyone could drain someone else's
+    private String subjectOrNull(HttpServletRequest request) {
+        String auth = request.getHeader("Authorization");
+        if (auth == null || !auth.startsWith("Bearer "))
+            return null;
+        try {
+            Map<String, Object> claims = JwtUtil.verify(auth.substring("Bearer ".length()).trim(), jwtSecret);
+            return claims.get("sub") instanceof String s ? s : null;
+        } catch (SecurityException e) {
+            return null; // the handler rejects the token itself
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package au.edu.rmit.sept.webapp.config;
+
+import au.edu.rmit.sept.webapp.service.TokenRevocationService;
+import au.edu.rmit.sept.webapp.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+
+/**
+ * Rejects bearer tokens of banned/deactivated users, or tokens minted before a
+ * role change, without a database lookup. Invalid tokens are left for the
+ * handler to reject as before.
+ */
+@Component
+public class TokenRevocationInterceptor implements HandlerInterceptor {
+
+    private final TokenRevocationService revocations;
+
+    @Value("${app.jwt.secret:dev-super-secret-change-me}")
+    private String jwtSecret;
+
+    public TokenRevocationInterceptor(TokenRevocationService revocations) {
+        this.revocations = revocations;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String auth = request.getHeader("Authorization");
+        if (auth == null || !auth.startsWith("Bearer "))
+            return true;
+        Map<String, Object> claims;
+        try {
+            claims = JwtUtil.verify(auth.substring("Bearer ".length()).trim(), jwtSecret);
+        } catch (SecurityException e) {
+            return true;
+        }
+        if (claims.get("sub") instanceof String sub && claims.get("iat") instanceof Number iat
+                && revocations.isRevoked(sub, iat.longValue())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "token revoked");
+        }
+        return true;
+    }
+}
@@ -2,17 +2,34 @@ package au.edu.rmit.sept.webapp.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final TokenRevocationInterceptor tokenRevocationInterceptor;
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    public WebConfig(TokenRevocationInterceptor tokenRevocationInterceptor, RateLimitInterceptor rateLimitInterceptor) {
+        this.tokenRevocationInterceptor = tokenRevocationInterceptor;
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
                 .allowedOrigins("http://localhost:5173", "http://localhost:3000")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Next-Cursor", "X-Total-Count")
                 .allowCredentials(true);
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(tokenRevocationInterceptor).addPathPatterns("/api/**");
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns("/api/auth/login", "/api/auth/register", "/api/rsvps", "/api/events/*/photos");
+    }
 }
\ No newline at end of file
@@ -1,18 +1,47 @@
 package au.edu.rmit.sept.webapp.controller;
 
+import au.edu.rmit.sept.webapp.dto.ExportJobDto;
+import au.edu.rmit.sept.webapp.dto.ModerationEventDto;
 import au.edu.rmit.sept.webapp.dto.UserDto;
 import au.edu.rmit.sept.webapp.model.AppUser;
 import au.edu.rmit.sept.webapp.model.AuditLog;
 import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.ExportJob;
 import au.edu.rmit.sept.webapp.model.Rsvp;
 import au.edu.rmit.sept.webapp.repository.*;
+import au.edu.rmit.sept.webapp.service.AnalyticsRollupService;
+import au.edu.rmit.sept.webapp.service.AuditLogWriter;
+import au.edu.rmit.sept.webapp.service.EventBulkService;
+import au.edu.rmit.sept.webapp.service.ExportJobService;
+import au.edu.rmit.sept.webapp.service.TokenRevocationService;
+import au.edu.rmit.sept.webapp.service.UserPrincipalCache;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -23,19 +52,46 @@ public class AdminApi {
     private final UserRepository userRepo;
     private final EventRepository eventRepo;
     private final RsvpRepository rsvpRepo;
-    private final PhotoRepository photoRepo;
     private final AuditLogRepository auditRepo;
+    private final UserPrincipalCache principals;
+    private final TokenRevocationService revocations;
+    private final ExportJobRepository exportRepo;
+    private final ExportJobService exports;
+    private final ObjectMapper objectMapper;
+    private final EventStatsRepository eventStatsRepo;
+    private final OrganizerStatsRepository organizerStatsRepo;
+    private final AnalyticsRollupService rollups;
+    private final AuditLogWriter audit;
+    private final EventBulkService bulk;
 
     public AdminApi(UserRepository userRepo,
             EventRepository eventRepo,
             RsvpRepository rsvpRepo,
-            PhotoRepository photoRepo,
-            AuditLogRepository auditRepo) {
+            AuditLogRepository auditRepo,
+            UserPrincipalCache principals,
+            TokenRevocationService revocations,
+            ExportJobRepository exportRepo,
+            ExportJobService exports,
+            ObjectMapper objectMapper,
+            EventStatsRepository eventStatsRepo,
+            OrganizerStatsRepository organizerStatsRepo,
+            AnalyticsRollupService rollups,
+            AuditLogWriter audit,
+            EventBulkService bulk) {
         this.userRepo = userRepo;
         this.eventRepo = eventRepo;
         this.rsvpRepo = rsvpRepo;
-        this.photoRepo = photoRepo;
         this.auditRepo = auditRepo;
+        this.principals = principals;
+        this.revocations = revocations;
+        this.exportRepo = exportRepo;
+        this.exports = exports;
+        this.objectMapper = objectMapper;
+        this.eventStatsRepo = eventStatsRepo;
+        this.organizerStatsRepo = organizerStatsRepo;
+        this.rollups = rollups;
+        this.audit = audit;
+        this.bulk = bulk;
     }
 
     @Value("${app.jwt.secret:dev-super-secret-change-me}")
@@ -61,26 +117,80 @@ public class AdminApi {
         if (subEmail == null || subEmail.isBlank()) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid token subject");
         }
-        AppUser u = userRepo.findByEmail(subEmail.toLowerCase().trim())
+        UserPrincipalCache.Principal u = principals.findByEmail(subEmail)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "user not found"));
-        return u.getId();
+        return u.id();
     }
 
-    private void log(UUID actorId, String action, UUID subjectId, String meta) {
+    private static PageRequest page(int page, int size, String sort, Set<String> sortable) {
+        String[] s = (sort == null || sort.isBlank() ? "" : sort).split(",");
+        String property = s[0].trim();
+        if (!sortable.contains(property)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cannot sort by '" + property + "'. Valid: " + sortable);
+        }
+        Sort.Direction dir = s.length > 1 && "desc".equalsIgnoreCase(s[1].trim()) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // id breaks ties so rows don't move between pages
+        return PageRequest.of(Math.max(0, page), Math.max(1, Math.min(200, size)), Sort.by(dir, property).and(Sort.by("id")));
+    }
+
+    // LIKE pattern matching values that start with the input, wildcards in it taken literally
+    private static String prefixPattern(String input) {
+        return input.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    // sparse fieldsets: ?fields=id,email keeps only those properties of each DTO
+    private List<?> sparse(List<?> dtos, String fields, Set<String> allowed) {
+        if (fields == null || fields.isBlank())
+            return dtos;
+        List<String> keep = Arrays.stream(fields.split(",")).map(String::trim).filter(s -> !s.isEmpty()).distinct().toList();
+        for (String f : keep) {
+            if (!allowed.contains(f)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown field '" + f + "'. Valid: " + allowed);
+            }
+        }
+        List<Map<String, Object>> out = new ArrayList<>(dtos.size());
+        for (Object dto : dtos) {
+            Map<String, Object> all = objectMapper.convertValue(dto, new TypeReference<Map<String, Object>>() {
+            });
+            Map<String, Object> picked = new LinkedHashMap<>();
+            for (String f : keep)
+                picked.put(f, all.get(f));
+            out.add(picked);
+        }
+        return out;
+    }
+
+    private static <T> ResponseEntity<List<?>> paged(Page<T> page, List<?> body) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(page.getTotalElements()))
+                .body(body);
+    }
+
+    private void log(UUID actorId, String action, UUID subjectId, Map<String, Object> meta) {
+        audit.record(entry(actorId, action, subjectId, meta));
+    }
+
+    private static AuditLog entry(UUID actorId, String action, UUID subjectId, Map<String, Object> meta) {
         AuditLog log = new AuditLog();
         log.setActorUserId(actorId);
         log.setAction(action);
         log.setSubjectId(subjectId);
         log.setMeta(meta);
-        auditRepo.save(log);
+        return log;
     }
 
     // --- USERS ---
 
+    private static final Set<String> USER_SORTS = Set.of("email", "name", "role", "createdAt");
+    private static final Set<String> USER_FIELDS = Set.of("id", "email", "role", "name", "active", "banned");
+
     @GetMapping("/users")
-    public List<UserDto> listUsers(HttpServletRequest request) {
-        requireAdmin(request);
-        return userRepo.findAll().stream().map(UserDto::from).toList();
+    public ResponseEntity<List<?>> listUsers(HttpServletRequest request,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "email") String sort,
+            @RequestParam(required = false) String fields) {
+        return searchUsers(request, null, null, null, page, size, sort, fields);
     }
 
     public record ActiveBody(boolean active) {
@@ -92,7 +202,9 @@ public class AdminApi {
         AppUser u = userRepo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         u.setActive(body != null && body.active());
         userRepo.save(u);
-        log(actor, "USER_DEACTIVATE", id, "{\"active\":" + u.isActive() + "}");
+        principals.evict(u.getEmail());
+        revocations.onAccessChanged(u);
+        log(actor, "USER_DEACTIVATE", id, Map.of("active", u.isActive()));
         return UserDto.from(u);
     }
 
@@ -105,7 +217,9 @@ public class AdminApi {
         AppUser u = userRepo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         u.setBanned(body != null && body.banned());
         userRepo.save(u);
-        log(actor, "USER_BAN", id, "{\"banned\":" + u.isBanned() + "}");
+        principals.evict(u.getEmail());
+        revocations.onAccessChanged(u);
+        log(actor, "USER_BAN", id, Map.of("banned", u.isBanned()));
         return UserDto.from(u);
     }
 
@@ -130,29 +244,75 @@ public class AdminApi {
         }
         u.setRole(role);
         userRepo.save(u);
-        log(actor, "USER_ROLE", id, "{\"role\":\"" + u.getRole() + "\"}");
+        principals.evict(u.getEmail());
+        revocations.onAccessChanged(u);
+        log(actor, "USER_ROLE", id, Map.of("role", u.getRole()));
         return UserDto.from(u);
     }
 
     // --- EVENTS moderation ---
 
+    /**
+     * The moderation queue in start-time order, {@code limit} rows at a time. Every filter
+     * runs in the query: {@code query} matches within the title or category, {@code from}
+     * and {@code to} bound the start time (ISO date-time, {@code to} exclusive). Pages are
+     * keyed on (startTime, id); the cursor for the next one comes back in X-Next-Cursor
+     * and is absent on the last page.
+     */
     @GetMapping("/events")
-    public List<Event> listEventsForModeration(HttpServletRequest request,
+    public ResponseEntity<List<ModerationEventDto>> listEventsForModeration(HttpServletRequest request,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String query) {
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
         requireAdmin(request);
         String st = status == null || status.isBlank() ? "" : status.trim().toUpperCase();
-        List<Event> base = switch (st) {
-            case "PENDING" -> eventRepo.findByApprovalStatusOrderByStartTimeAsc("PENDING");
-            case "APPROVED" -> eventRepo.findByApprovalStatusOrderByStartTimeAsc("APPROVED");
-            case "REJECTED" -> eventRepo.findByApprovalStatusOrderByStartTimeAsc("REJECTED");
-            default -> eventRepo.findAllByOrderByStartTimeAsc();
+        String approvalStatus = switch (st) {
+            case "PENDING", "APPROVED", "REJECTED" -> st;
+            default -> null; // ALL
         };
-        if (query == null || query.isBlank())
-            return base;
-        String q = query.toLowerCase();
-        return base.stream().filter(e -> (e.getTitle() != null && e.getTitle().toLowerCase().contains(q)) ||
-                (e.getCategory() != null && e.getCategory().toLowerCase().contains(q))).toList();
+        String text = query == null || query.isBlank() ? null : "%" + prefixPattern(query.toLowerCase());
+        String cat = category == null || category.isBlank() ? null : category.trim();
+        QueueCursor cursor = after == null || after.isBlank() ? null : QueueCursor.parse(after);
+        limit = Math.max(1, Math.min(200, limit));
+
+        // one extra row tells whether another page exists
+        List<EventRepository.ModerationRow> rows = eventRepo.findForModeration(approvalStatus, cat, from, to, text,
+                cursor == null ? null : cursor.startTime(), cursor == null ? null : cursor.id(),
+                PageRequest.of(0, limit + 1));
+
+        List<ModerationEventDto> dtos = rows.subList(0, Math.min(limit, rows.size())).stream()
+                .map(ModerationEventDto::from).toList();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() > limit) {
+            EventRepository.ModerationRow last = rows.get(limit - 1);
+            response.header("X-Next-Cursor", new QueueCursor(last.getStartTime(), last.getId()).format());
+        }
+        return response.body(dtos);
+    }
+
+    /** Position in the moderation queue: the last event a page returned. Opaque to clients. */
+    private record QueueCursor(LocalDateTime startTime, UUID id) {
+
+        String format() {
+            String raw = startTime + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static QueueCursor parse(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int bar = raw.indexOf('|');
+                if (bar < 0)
+                    throw new IllegalArgumentException(raw);
+                return new QueueCursor(LocalDateTime.parse(raw.substring(0, bar)), UUID.fromString(raw.substring(bar + 1)));
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+            }
+        }
     }
 
     @PostMapping("/events/{id}/approve")
@@ -176,18 +336,60 @@ public class AdminApi {
         e.setApprovalStatus("REJECTED");
         e.setRejectionReason(body != null ? body.reason() : null);
         eventRepo.save(e);
-        log(actor, "EVENT_REJECT", id, body != null ? "{\"reason\":\"" + body.reason() + "\"}" : null);
+        log(actor, "EVENT_REJECT", id, body != null && body.reason() != null ? Map.of("reason", body.reason()) : null);
         return e;
     }
 
+    public record BulkEventsBody(String action, List<UUID> ids, String reason) {
+    }
+
+    public record BulkEventsResult(String action, List<UUID> done, List<UUID> notFound) {
+    }
+
+    private static final int MAX_BULK_EVENTS = 1000;
+
+    /**
+     * Approves, rejects or deletes up to 1000 events with a few set-based statements
+     * instead of a load and save per event. Ids that don't exist are reported in
+     * {@code notFound} rather than failing the rest.
+     */
+    @PostMapping("/events/bulk")
+    public BulkEventsResult bulkEvents(HttpServletRequest request, @RequestBody BulkEventsBody body) {
+        UUID actor = requireAdmin(request);
+        if (body == null || body.ids() == null || body.ids().isEmpty() || body.ids().contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids are required");
+        }
+        Set<UUID> ids = new LinkedHashSet<>(body.ids());
+        if (ids.size() > MAX_BULK_EVENTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at most " + MAX_BULK_EVENTS + " ids per request");
+        }
+        String action = body.action() == null ? "" : body.action().trim().toLowerCase();
+        String reason = body.reason() == null || body.reason().isBlank() ? null : body.reason();
+
+        List<UUID> done = switch (action) {
+            case "approve" -> bulk.setApproval(ids, "APPROVED", null);
+            case "reject" -> bulk.setApproval(ids, "REJECTED", reason);
+            case "delete" -> bulk.delete(ids);
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "action must be approve, reject or delete");
+        };
+
+        String auditAction = "EVENT_" + action.toUpperCase();
+        Map<String, Object> meta = "reject".equals(action) && reason != null
+                ? Map.of("bulk", true, "reason", reason)
+                : Map.of("bulk", true);
+        audit.recordAll(done.stream().map(id -> entry(actor, auditAction, id, meta)).toList());
+
+        Set<UUID> found = new HashSet<>(done);
+        return new BulkEventsResult(action, done, ids.stream().filter(id -> !found.contains(id)).toList());
+    }
+
     @DeleteMapping("/events/{id}")
+    @Transactional
     public void deleteEvent(HttpServletRequest request, @PathVariable UUID id) {
         UUID actor = requireAdmin(request);
-        Event e = eventRepo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        // Cascade clean-up if not already configured:
-        rsvpRepo.deleteAll(rsvpRepo.findByEventId(id));
-        photoRepo.deleteAll(photoRepo.findByEventId(id));
-        eventRepo.delete(e);
+        if (!bulk.delete(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
         log(actor, "EVENT_DELETE", id, null);
     }
 
@@ -218,41 +420,50 @@ public class AdminApi {
 
     // --- USER Management enhancements ---
 
+    /**
+     * Users matching every given filter, a page at a time; the total is in X-Total-Count.
+     * {@code q} is a prefix of the email or the name. Both are indexed and compared as
+     * stored (MySQL's default collation is case-insensitive), so the index is usable.
+     */
     @GetMapping("/users/search")
-    public List<UserDto> searchUsers(HttpServletRequest request,
+    public ResponseEntity<List<?>> searchUsers(HttpServletRequest request,
             @RequestParam(required = false) String q,
             @RequestParam(required = false) String role,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "email") String sort,
+            @RequestParam(required = false) String fields) {
         requireAdmin(request);
-        List<AppUser> allUsers = userRepo.findAll();
-
-        return allUsers.stream()
-                .filter(u -> {
-                    // Search filter
-                    if (q != null && !q.isBlank()) {
-                        String query = q.toLowerCase();
-                        boolean matchesEmail = u.getEmail() != null && u.getEmail().toLowerCase().contains(query);
-                        boolean matchesName = u.getName() != null && u.getName().toLowerCase().contains(query);
-                        if (!matchesEmail && !matchesName)
-                            return false;
+        PageRequest pageRequest = page(page, size, sort, USER_SORTS);
+
+        Specification<AppUser> spec = (root, query, cb) -> {
+            List<Predicate> ps = new ArrayList<>();
+            if (q != null && !q.isBlank()) {
+                ps.add(cb.or(
+                        cb.like(root.get("email"), prefixPattern(q.toLowerCase()), '\\'),
+                        cb.like(root.get("name"), prefixPattern(q), '\\')));
+            }
+            if (role != null && !role.isBlank()) {
+                ps.add(cb.equal(root.get("role"), role.trim().toUpperCase()));
+            }
+            if (status != null && !status.isBlank()) {
+                switch (status.trim().toLowerCase()) {
+                    case "active" -> {
+                        ps.add(cb.isTrue(root.get("active")));
+                        ps.add(cb.isFalse(root.get("banned")));
                     }
-                    // Role filter
-                    if (role != null && !role.isBlank() && !role.equalsIgnoreCase(u.getRole())) {
-                        return false;
-                    }
-                    // Status filter (active/banned)
-                    if (status != null && !status.isBlank()) {
-                        if ("active".equalsIgnoreCase(status) && (!u.isActive() || u.isBanned())) {
-                            return false;
-                        }
-                        if ("banned".equalsIgnoreCase(status) && !u.isBanned()) {
-                            return false;
-                        }
-                    }
-                    return true;
-                })
-                .map(UserDto::from)
-                .toList();
+                    case "inactive" -> ps.add(cb.isFalse(root.get("active")));
+                    case "banned" -> ps.add(cb.isTrue(root.get("banned")));
+                    default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "invalid status. Valid: active, inactive, banned");
+                }
+            }
+            return cb.and(ps.toArray(new Predicate[0]));
+        };
+
+        Page<AppUser> users = userRepo.findAll(spec, pageRequest);
+        return paged(users, sparse(users.getContent().stream().map(UserDto::from).toList(), fields, USER_FIELDS));
     }
 
     @GetMapping("/users/{id}/events")
@@ -268,6 +479,56 @@ public class AdminApi {
         return rsvpRepo.findByUserId(id);
     }
 
+    // --- Data exports ---
+
+    public record ExportBody(String dataset, String format) {
+    }
+
+    /** Starts a background dump; poll the returned job until it is DONE, then fetch its file. */
+    @PostMapping("/exports")
+    public ResponseEntity<ExportJobDto> startExport(HttpServletRequest request, @RequestBody ExportBody body) {
+        UUID actor = requireAdmin(request);
+        ExportJob.Dataset dataset;
+        ExportJob.Format format;
+        try {
+            dataset = ExportJob.Dataset.valueOf(String.valueOf(body == null ? null : body.dataset()).trim().toUpperCase());
+            format = body.format() == null || body.format().isBlank() ? ExportJob.Format.CSV
+                    : ExportJob.Format.valueOf(body.format().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "invalid export. Datasets: EVENTS, RSVPS, FEEDBACK, AUDIT_LOG; formats: CSV, NDJSON");
+        }
+        ExportJob job = exports.start(dataset, format, actor);
+        log(actor, "DATA_EXPORT", job.getId(), Map.of("dataset", dataset, "format", format));
+        return ResponseEntity.accepted()
+                .header(HttpHeaders.LOCATION, "/api/admin/exports/" + job.getId())
+                .body(ExportJobDto.from(job));
+    }
+
+    @GetMapping("/exports/{id}")
+    public ExportJobDto exportStatus(HttpServletRequest request, @PathVariable UUID id) {
+        requireAdmin(request);
+        return ExportJobDto.from(exportRepo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping("/exports/{id}/file")
+    public ResponseEntity<Resource> downloadExport(HttpServletRequest request, @PathVariable UUID id) throws IOException {
+        requireAdmin(request);
+        ExportJob job = exportRepo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (job.getStatus() != ExportJob.Status.DONE) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "export is " + job.getStatus());
+        }
+        Resource file = exports.file(job);
+        if (file == null) {
+            throw new ResponseStatusException(HttpStatus.GONE, "export file expired");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(ExportJobService.fileName(job)).build().toString())
+                .body(file);
+    }
+
     // --- Analytics (enhanced) ---
 
     public record Counts(long users, long eventsTotal, long eventsApproved, long eventsPending, long rsvpsTotal) {
@@ -293,17 +554,8 @@ public class AdminApi {
     public List<PopularEvent> popularEvents(HttpServletRequest request,
             @RequestParam(defaultValue = "10") int limit) {
         requireAdmin(request);
-
-        // Get all approved events with RSVP counts
-        List<Event> approvedEvents = eventRepo.findByApprovalStatusOrderByStartTimeAsc("APPROVED");
-
-        return approvedEvents.stream()
-                .map(e -> {
-                    long count = rsvpRepo.findByEventId(e.getId()).size();
-                    return new PopularEvent(e.getId(), e.getTitle(), count);
-                })
-                .sorted((a, b) -> Long.compare(b.rsvpCount(), a.rsvpCount()))
-                .limit(limit)
+        return eventStatsRepo.findPopularApproved(PageRequest.of(0, Math.max(1, Math.min(100, limit)))).stream()
+                .map(r -> new PopularEvent(r.getId(), r.getTitle(), r.getRsvpCount()))
                 .toList();
     }
 
@@ -314,22 +566,89 @@ public class AdminApi {
     public List<ActivityRecord> recentActivity(HttpServletRequest request,
             @RequestParam(defaultValue = "20") int limit) {
         requireAdmin(request);
-
-        // Get recent audit logs
-        List<AuditLog> logs = auditRepo.findAll()
-                .stream()
-                .sorted((a, b) -> b.getTs().compareTo(a.getTs()))
-                .limit(limit)
-                .toList();
+        List<AuditLog> logs = auditRepo.findPage(null, null, null, null, null,
+                PageRequest.of(0, Math.max(1, Math.min(100, limit))));
 
         return logs.stream()
                 .map(log -> new ActivityRecord(
                         LocalDateTime.ofInstant(log.getTs(), java.time.ZoneId.systemDefault()),
                         log.getAction(),
-                        log.getMeta() != null ? log.getMeta() : ""))
+                        metaText(log.getMeta())))
                 .toList();
     }
 
+    private String metaText(Map<String, Object> meta) {
+        if (meta == null || meta.isEmpty())
+            return "";
+        try {
+            return objectMapper.writeValueAsString(meta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public record AuditEntry(UUID id, Instant ts, UUID actorUserId, String action, UUID subjectId,
+            Map<String, Object> meta) {
+    }
+
+    /**
+     * The audit log newest first, {@code limit} entries at a time, optionally only one
+     * action, actor or subject. Pages are keyed on (ts, id); the cursor for the next one
+     * comes back in X-Next-Cursor and is absent on the last page.
+     */
+    @GetMapping("/audit")
+    public ResponseEntity<List<AuditEntry>> auditLog(HttpServletRequest request,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) UUID actorUserId,
+            @RequestParam(required = false) UUID subjectId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
+        requireAdmin(request);
+        String act = action == null || action.isBlank() ? null : action.trim().toUpperCase();
+        AuditCursor cursor = after == null || after.isBlank() ? null : AuditCursor.parse(after);
+        limit = Math.max(1, Math.min(200, limit));
+
+        // one extra row tells whether another page exists
+        List<AuditLog> rows = auditRepo.findPage(act, actorUserId, subjectId,
+                cursor == null ? null : cursor.ts(), cursor == null ? null : cursor.id(),
+                PageRequest.of(0, limit + 1));
+
+        List<AuditEntry> entries = rows.subList(0, Math.min(limit, rows.size())).stream()
+                .map(a -> new AuditEntry(a.getId(), a.getTs(), a.getActorUserId(), a.getAction(), a.getSubjectId(),
+                        a.getMeta()))
+                .toList();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() > limit) {
+            AuditLog last = rows.get(limit - 1);
+            response.header("X-Next-Cursor", new AuditCursor(last.getTs(), last.getId()).format());
+        }
+        return response.body(entries);
+    }
+
+    /** Position in the audit log: the last entry a page returned. Opaque to clients. */
+    private record AuditCursor(Instant ts, UUID id) {
+
+        String format() {
+            String raw = ts.getEpochSecond() + "." + ts.getNano() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static AuditCursor parse(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int bar = raw.indexOf('|');
+                int dot = raw.indexOf('.');
+                if (bar < 0 || dot < 0 || dot > bar)
+                    throw new IllegalArgumentException(raw);
+                Instant at = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)),
+                        Long.parseLong(raw.substring(dot + 1, bar)));
+                return new AuditCursor(at, UUID.fromString(raw.substring(bar + 1)));
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+            }
+        }
+    }
+
     public record OrganizerStats(String email, String name, long eventsCreated, long totalRsvps) {
     }
 
@@ -337,35 +656,32 @@ public class AdminApi {
     public List<OrganizerStats> organizerLeaderboard(HttpServletRequest request,
             @RequestParam(defaultValue = "10") int limit) {
         requireAdmin(request);
-
-        // Get all organizers (users who created events)
-        List<Event> allEvents = eventRepo.findAll();
-        Map<String, OrganizerStats> statsMap = new HashMap<>();
-
-        for (Event e : allEvents) {
-            String email = e.getOrganizerEmail();
-            if (email == null || email.isBlank())
-                continue;
-
-            statsMap.putIfAbsent(email, createOrganizerStats(email));
-            OrganizerStats existing = statsMap.get(email);
-            long rsvpCount = rsvpRepo.findByEventId(e.getId()).size();
-            statsMap.put(email, new OrganizerStats(
-                    existing.email(),
-                    existing.name(),
-                    existing.eventsCreated() + 1,
-                    existing.totalRsvps() + rsvpCount));
-        }
-
-        return statsMap.values().stream()
-                .sorted((a, b) -> Long.compare(b.totalRsvps(), a.totalRsvps()))
-                .limit(limit)
+        return organizerStatsRepo.findLeaders(PageRequest.of(0, Math.max(1, Math.min(100, limit)))).stream()
+                .map(r -> new OrganizerStats(r.getEmail(), r.getName(), r.getEventsCreated(), r.getTotalRsvps()))
                 .toList();
     }
 
-    private OrganizerStats createOrganizerStats(String email) {
-        Optional<AppUser> user = userRepo.findByEmail(email);
-        String name = user.map(AppUser::getName).orElse(email);
-        return new OrganizerStats(email, name, 0L, 0L);
+    /**
+     * New RSVPs, registrations or events per UTC day or week, zero-filled, read from the
+     * pre-aggregated activity buckets rather than the source tables.
+     */
+    @GetMapping("/analytics/timeseries")
+    public List<AnalyticsRollupService.Point> timeseries(HttpServletRequest request,
+            @RequestParam String metric,
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        requireAdmin(request);
+        return rollups.timeseries(metric.trim().toLowerCase(), bucket.trim().toLowerCase(), from, to);
+    }
+
+    /** Recomputes the rollups behind popular-events, organizer-leaderboard and timeseries. */
+    @PostMapping("/analytics/rollups/rebuild")
+    public AnalyticsRollupService.Rebuilt rebuildRollups(HttpServletRequest request) {
+        UUID actor = requireAdmin(request);
+        AnalyticsRollupService.Rebuilt rebuilt = rollups.rebuild();
+        log(actor, "ANALYTICS_REBUILD", null, Map.of("events", rebuilt.events(), "organizers", rebuilt.organizers(),
+                "buckets", rebuilt.buckets()));
+        return rebuilt;
     }
 }
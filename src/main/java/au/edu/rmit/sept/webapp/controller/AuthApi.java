@@ -4,7 +4,6 @@ import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -15,8 +14,12 @@ import au.edu.rmit.sept.webapp.dto.AuthDtos;
 import au.edu.rmit.sept.webapp.dto.UserDto;
 import au.edu.rmit.sept.webapp.model.AppUser;
 import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.service.PasswordHashingService;
+import au.edu.rmit.sept.webapp.service.RateLimitService;
+import au.edu.rmit.sept.webapp.service.RateLimitService.RouteClass;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 
 @RestController
@@ -24,12 +27,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 public class AuthApi {
 
     private final UserRepository users;
+    private final PasswordHashingService passwords;
+    private final RateLimitService rateLimits;
 
     // Valid roles
     private static final Set<String> VALID_ROLES = Set.of("STUDENT", "ORGANIZER", "ADMIN");
 
-    public AuthApi(UserRepository users) {
+    public AuthApi(UserRepository users, PasswordHashingService passwords, RateLimitService rateLimits) {
         this.users = users;
+        this.passwords = passwords;
+        this.rateLimits = rateLimits;
     }
 
     @Value("${app.jwt.secret:dev-secret-please-change}")
@@ -39,11 +46,12 @@ public class AuthApi {
     private long jwtTtlSeconds;
 
     @PostMapping("/register")
-    public AuthDtos.AuthResponse register(@RequestBody AuthDtos.RegisterRequest req) {
+    public AuthDtos.AuthResponse register(@RequestBody AuthDtos.RegisterRequest req, HttpServletResponse response) {
         if (req.email == null || req.password == null || req.email.isBlank() || req.password.isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "email and password required");
         }
         String email = req.email.toLowerCase().trim();
+        rateLimits.enforceForAccount(RouteClass.AUTH, email, response);
         if (users.existsByEmail(email)) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "email already registered");
         }
@@ -65,8 +73,7 @@ public class AuthApi {
         }
         u.setRole(role);
 
-        String salt = BCrypt.gensalt();
-        u.setPasswordHash(BCrypt.hashpw(req.password, salt));
+        u.setPasswordHash(passwords.hash(req.password));
         users.save(u);
 
         String token = JwtUtil.createToken(u.getEmail(), u.getRole(), jwtSecret, jwtTtlSeconds);
@@ -77,13 +84,14 @@ public class AuthApi {
     }
 
     @PostMapping("/login")
-    public AuthDtos.AuthResponse login(@RequestBody AuthDtos.LoginRequest req) {
+    public AuthDtos.AuthResponse login(@RequestBody AuthDtos.LoginRequest req, HttpServletResponse response) {
         if (req.email == null || req.password == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "email and password required");
         }
+        rateLimits.enforceForAccount(RouteClass.AUTH, req.email, response);
         AppUser u = users.findByEmail(req.email.toLowerCase().trim())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid credentials"));
-        if (!BCrypt.checkpw(req.password, u.getPasswordHash())) {
+        if (!passwords.verify(req.password, u.getPasswordHash())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid credentials");
         }
         // enforce flags
@@ -93,6 +101,11 @@ public class AuthApi {
         if (u.isBanned()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "account banned");
         }
+        // transparently upgrade hashes produced with an older cost factor
+        if (passwords.needsRehash(u.getPasswordHash())) {
+            u.setPasswordHash(passwords.hash(req.password));
+            users.save(u);
+        }
         String token = JwtUtil.createToken(u.getEmail(), u.getRole(), jwtSecret, jwtTtlSeconds);
         AuthDtos.AuthResponse resp = new AuthDtos.AuthResponse();
         resp.token = token;
@@ -18,6 +18,7 @@ import au.edu.rmit.sept.webapp.model.Badge;
 import au.edu.rmit.sept.webapp.repository.BadgeRepository;
 import au.edu.rmit.sept.webapp.repository.UserRepository;
 import au.edu.rmit.sept.webapp.service.BadgeService;
+import au.edu.rmit.sept.webapp.service.UserPrincipalCache;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -28,11 +29,14 @@ public class BadgeApi {
     private final BadgeRepository badgeRepo;
     private final BadgeService badgeService;
     private final UserRepository userRepo;
+    private final UserPrincipalCache principals;
 
-    public BadgeApi(BadgeRepository badgeRepo, BadgeService badgeService, UserRepository userRepo) {
+    public BadgeApi(BadgeRepository badgeRepo, BadgeService badgeService, UserRepository userRepo,
+            UserPrincipalCache principals) {
         this.badgeRepo = badgeRepo;
         this.badgeService = badgeService;
         this.userRepo = userRepo;
+        this.principals = principals;
     }
 
     @Value("${app.jwt.secret:dev-secret-please-change}")
@@ -54,7 +58,9 @@ public class BadgeApi {
 
     private AppUser requireUser(HttpServletRequest request) {
         String email = requireEmail(request);
-        return userRepo.findByEmail(email)
+        // lazy reference: badge counts only need the id, the row is loaded if a criterion reads other fields
+        return principals.findByEmail(email)
+                .map(p -> userRepo.getReferenceById(p.id()))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "user not found"));
     }
 
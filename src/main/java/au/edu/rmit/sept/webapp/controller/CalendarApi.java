@@ -0,0 +1,91 @@
+package au.edu.rmit.sept.webapp.controller;
+
+import au.edu.rmit.sept.webapp.service.CalendarFeedService;
+import au.edu.rmit.sept.webapp.service.UserPrincipalCache;
+import au.edu.rmit.sept.webapp.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * iCalendar subscription feeds. Calendar apps cannot send a bearer token, so the
+ * personal feed is addressed by a per-user token obtained from {@code /my-link}; POSTing
+ * to it issues a new link and revokes the old one.
+ * Responses carry ETag and Last-Modified; Spring answers matching conditional
+ * requests with 304.
+ */
+@RestController
+@RequestMapping("/api/calendar")
+public class CalendarApi {
+
+    private static final MediaType TEXT_CALENDAR = MediaType.parseMediaType("text/calendar; charset=UTF-8");
+
+    private final CalendarFeedService feeds;
+    private final UserPrincipalCache principals;
+
+    public CalendarApi(CalendarFeedService feeds, UserPrincipalCache principals) {
+        this.feeds = feeds;
+        this.principals = principals;
+    }
+
+    @Value("${app.jwt.secret:dev-super-secret-change-me}")
+    private String jwtSecret;
+
+    @GetMapping("/events.ics")
+    public ResponseEntity<byte[]> events(@RequestParam(required = false) String category) {
+        return serve(feeds.events(category), CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic());
+    }
+
+    @GetMapping("/my.ics")
+    public ResponseEntity<byte[]> mine(@RequestParam String token) {
+        return serve(feeds.user(token), CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate());
+    }
+
+    public record Link(String url) {
+    }
+
+    /** Subscription URL for the caller's own feed. */
+    @GetMapping("/my-link")
+    public Link myLink(HttpServletRequest request) {
+        return link(feeds.token(currentUserId(request)));
+    }
+
+    /** A new subscription URL for the caller; the previous one stops working. */
+    @PostMapping("/my-link")
+    public Link regenerateLink(HttpServletRequest request) {
+        return link(feeds.rotate(currentUserId(request)));
+    }
+
+    private UUID currentUserId(HttpServletRequest request) {
+        String auth = request.getHeader("Authorization");
+        if (auth == null || !auth.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "missing bearer token");
+        }
+        Map<String, Object> claims = JwtUtil.verify(auth.substring("Bearer ".length()).trim(), jwtSecret);
+        return principals.findByEmail(String.valueOf(claims.get("sub")))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "user not found"))
+                .id();
+    }
+
+    private static Link link(String token) {
+        return new Link("/api/calendar/my.ics?token=" + token);
+    }
+
+    private static ResponseEntity<byte[]> serve(CalendarFeedService.Feed feed, CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .eTag(feed.etag())
+                .lastModified(feed.lastModified())
+                .cacheControl(cacheControl)
+                .body(feed.body());
+    }
+}
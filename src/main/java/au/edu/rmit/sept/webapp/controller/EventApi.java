@@ -2,12 +2,10 @@ package au.edu.rmit.sept.webapp.controller;
 
 import au.edu.rmit.sept.webapp.dto.EventDto;
 import au.edu.rmit.sept.webapp.model.Event;
-import au.edu.rmit.sept.webapp.model.Photo;
 import au.edu.rmit.sept.webapp.repository.EventRepository;
-import au.edu.rmit.sept.webapp.repository.PhotoRepository;
-import au.edu.rmit.sept.webapp.repository.RsvpRepository;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
-import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.service.EventBulkService;
+import au.edu.rmit.sept.webapp.service.UserPrincipalCache;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,8 +17,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
 
 @RestController
@@ -28,15 +24,13 @@ import java.util.*;
 public class EventApi {
 
     private final EventRepository repo;
-    private final RsvpRepository rsvpRepo;
-    private final PhotoRepository photoRepo;
-    private final UserRepository users;
+    private final UserPrincipalCache principals;
+    private final EventBulkService bulk;
 
-    public EventApi(EventRepository repo, RsvpRepository rsvpRepo, PhotoRepository photoRepo, UserRepository users) {
+    public EventApi(EventRepository repo, UserPrincipalCache principals, EventBulkService bulk) {
         this.repo = repo;
-        this.rsvpRepo = rsvpRepo;
-        this.photoRepo = photoRepo;
-        this.users = users;
+        this.principals = principals;
+        this.bulk = bulk;
     }
 
     @Value("${app.jwt.secret:dev-super-secret-change-me}")
@@ -115,8 +109,8 @@ public class EventApi {
 
         // Use authoritative role from DB in case the JWT is stale (e.g., admin changed
         // role)
-        String dbRole = users.findByEmail(email).map(u -> {
-            String r = Optional.ofNullable(u.getRole()).orElse("").toUpperCase();
+        String dbRole = principals.findByEmail(email).map(u -> {
+            String r = Optional.ofNullable(u.role()).orElse("").toUpperCase();
             return "ORGANISER".equals(r) ? "ORGANIZER" : r; // normalize AU spelling
         }).orElse(role);
 
@@ -212,28 +206,8 @@ public class EventApi {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "only organizer/admin can delete this event");
         }
 
-        // 1) Delete photo files + rows
-        List<Photo> photos = photoRepo.findByEventIdOrderByCreatedAtAsc(id);
-        for (Photo p : photos) {
-            try {
-                Files.deleteIfExists(Paths.get(p.getStoragePath()));
-            } catch (Exception ignored) {
-                // best-effort: do not fail the API because of filesystem hiccups
-            }
-        }
-        if (!photos.isEmpty()) {
-            photoRepo.deleteAll(photos);
-        }
-
-        // 2) Delete RSVPs
-        try {
-            rsvpRepo.deleteAllByEvent(ev);
-        } catch (Exception ignored) {
-            // tolerate missing/partial rows to avoid 500s on inconsistent data
-        }
-
-        // 3) Delete the event
-        repo.delete(ev);
+        // photos, feedback and RSVPs go by event id; photo files are reaped after commit
+        bulk.delete(id);
 
         return ResponseEntity.noContent().build();
     }
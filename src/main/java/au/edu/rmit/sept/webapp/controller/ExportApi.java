@@ -1,19 +1,30 @@
 package au.edu.rmit.sept.webapp.controller;
 
-import au.edu.rmit.sept.webapp.model.AppUser;
 import au.edu.rmit.sept.webapp.model.Event;
-import au.edu.rmit.sept.webapp.model.Rsvp;
 import au.edu.rmit.sept.webapp.repository.EventRepository;
 import au.edu.rmit.sept.webapp.repository.RsvpRepository;
+import au.edu.rmit.sept.webapp.util.Csv;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.Iterator;
 import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/events")
@@ -21,53 +32,108 @@ public class ExportApi {
 
     private final RsvpRepository rsvpRepository;
     private final EventRepository eventRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean mysql;
 
-    public ExportApi(RsvpRepository rsvpRepository, EventRepository eventRepository) {
+    public ExportApi(RsvpRepository rsvpRepository, EventRepository eventRepository,
+                     PlatformTransactionManager txManager,
+                     @Value("${spring.datasource.url:}") String datasourceUrl) {
         this.rsvpRepository = rsvpRepository;
         this.eventRepository = eventRepository;
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.mysql = datasourceUrl.startsWith("jdbc:mysql:");
     }
 
+    /**
+     * Streams the CSV as rows come off the database cursor, so memory stays flat however
+     * many attendees there are. Gzipped when the client accepts it.
+     */
     @GetMapping("/{eventId}/attendees/export")
-    public ResponseEntity<byte[]> exportAttendees(@PathVariable UUID eventId) {
+    public ResponseEntity<StreamingResponseBody> exportAttendees(
+            @PathVariable UUID eventId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         Event event = eventRepository.findById(eventId).orElse(null);
         if (event == null) {
             return ResponseEntity.notFound().build();
         }
-
-        List<Rsvp> rsvps = rsvpRepository.findByEvent_Id(eventId);
-        if (rsvps.isEmpty()) {
+        if (!rsvpRepository.existsByEvent_Id(eventId)) {
             return ResponseEntity.noContent().build(); // 204 — per AC, no empty file
         }
 
         String filename = makeFileName(event);
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            GZIPOutputStream zipped = gzip ? new GZIPOutputStream(out, 8192) : null;
+            Writer w = new BufferedWriter(new OutputStreamWriter(zipped != null ? zipped : out, StandardCharsets.UTF_8),
+                    64 * 1024);
+            try {
+                // the cursor needs an open transaction; this runs after the request thread has returned
+                readOnlyTx.executeWithoutResult(tx -> {
+                    try (Stream<RsvpRepository.AttendeeRow> rows = mysql
+                            ? rsvpRepository.streamAttendees(eventId)
+                            : rsvpRepository.streamAttendeesInChunks(eventId)) {
+                        writeCsv(w, rows.iterator());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // client went away
+            }
+            w.flush();
+            if (zipped != null) zipped.finish();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(filename))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("Name,Email,RSVP Status\n");
-        for (Rsvp r : rsvps) {
-            AppUser u = r.getUser();
-            String name = u != null ? safe(u.getName()) : "";
-            String email = u != null ? safe(u.getEmail()) : "";
+    private static void writeCsv(Writer w, Iterator<RsvpRepository.AttendeeRow> rows) throws IOException {
+        w.write("Name,Email,RSVP Status\n");
+        while (rows.hasNext()) {
+            RsvpRepository.AttendeeRow r = rows.next();
             String status = r.getStatus() != null ? r.getStatus().name() : "";
-            sb.append(csv(name)).append(',')
-              .append(csv(email)).append(',')
-              .append(csv(status)).append('\n');
+            w.write(csv(safe(r.getName())));
+            w.write(',');
+            w.write(csv(safe(r.getEmail())));
+            w.write(',');
+            w.write(csv(status));
+            w.write('\n');
         }
+    }
 
-        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(filename))
-                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
-                .body(bytes);
+    // gzip unless absent or refused with q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] f = part.trim().split(";");
+            String coding = f[0].trim();
+            if (!coding.equalsIgnoreCase("gzip")) continue;
+            for (int i = 1; i < f.length; i++) {
+                String p = f[i].trim();
+                if (p.startsWith("q=")) {
+                    try {
+                        if (Double.parseDouble(p.substring(2)) <= 0) return false;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
     }
 
     private static String safe(String s) { return s == null ? "" : s; }
 
-    // RFC 4180 escaping
     private static String csv(String field) {
-        if (field == null) return "";
-        boolean needs = field.contains(",") || field.contains("\"") || field.contains("\n") || field.contains("\r");
-        String v = field.replace("\"", "\"\"");
-        return needs ? "\"" + v + "\"" : v;
+        return Csv.field(field);
     }
 
     private static String makeFileName(Event e) {
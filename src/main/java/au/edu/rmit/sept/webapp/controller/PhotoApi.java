@@ -3,40 +3,68 @@ package au.edu.rmit.sept.webapp.controller;
 import au.edu.rmit.sept.webapp.dto.PhotoDto;
 import au.edu.rmit.sept.webapp.model.Event;
 import au.edu.rmit.sept.webapp.model.Photo;
+import au.edu.rmit.sept.webapp.model.PhotoRendition;
+import au.edu.rmit.sept.webapp.model.PhotoSize;
 import au.edu.rmit.sept.webapp.repository.EventRepository;
 import au.edu.rmit.sept.webapp.repository.PhotoRepository;
+import au.edu.rmit.sept.webapp.service.PhotoBlobService;
+import au.edu.rmit.sept.webapp.service.PhotoDerivativeService;
+import au.edu.rmit.sept.webapp.service.PhotoIngestService;
+import au.edu.rmit.sept.webapp.service.PhotoStorage;
+import au.edu.rmit.sept.webapp.service.PhotoUrlSigner;
+import au.edu.rmit.sept.webapp.util.FileTransfer;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
+import au.edu.rmit.sept.webapp.util.StoredZipWriter;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.*;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api")
 public class PhotoApi {
 
+    // a photo id (plus size) always maps to the same bytes, so responses never go stale
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final String SAVE_DATA = "Save-Data";
+
     private final EventRepository eventRepo;
     private final PhotoRepository photoRepo;
+    private final PhotoDerivativeService derivatives;
+    private final PhotoUrlSigner urlSigner;
+    private final PhotoBlobService blobs;
+    private final PhotoIngestService ingest;
+    private final PhotoStorage storage;
 
-    public PhotoApi(EventRepository eventRepo, PhotoRepository photoRepo) {
+    public PhotoApi(EventRepository eventRepo, PhotoRepository photoRepo, PhotoDerivativeService derivatives,
+            PhotoUrlSigner urlSigner, PhotoBlobService blobs, PhotoIngestService ingest, PhotoStorage storage) {
         this.eventRepo = eventRepo;
         this.photoRepo = photoRepo;
+        this.derivatives = derivatives;
+        this.urlSigner = urlSigner;
+        this.blobs = blobs;
+        this.ingest = ingest;
+        this.storage = storage;
     }
 
     @Value("${app.jwt.secret:dev-super-secret-change-me}")
     private String jwtSecret;
 
-    @Value("${app.uploadDir:uploads}")
-    private String uploadDir;
-
     // ========== Helpers ==========
 
     private String ensureAuthAndGetEmail(HttpServletRequest request) {
@@ -72,16 +100,17 @@ public class PhotoApi {
         }
     }
 
-    private Path eventFolder(UUID eventId) throws IOException {
-        Path base = Paths.get(uploadDir).toAbsolutePath().normalize();
-        Path folder = base.resolve(eventId.toString());
-        Files.createDirectories(folder);
-        return folder;
-    }
-
-    private boolean isImage(MultipartFile file) {
-        String ct = Optional.ofNullable(file.getContentType()).orElse("");
-        return ct.equalsIgnoreCase(MediaType.IMAGE_JPEG_VALUE) || ct.equalsIgnoreCase(MediaType.IMAGE_PNG_VALUE);
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.startsWith("W/"))
+                t = t.substring(2);
+            if (t.equals("*") || t.equals(etag))
+                return true;
+        }
+        return false;
     }
 
     // ========== API ==========
@@ -91,57 +120,178 @@ public class PhotoApi {
         List<Photo> photos = photoRepo.findByEventIdOrderByCreatedAtAsc(eventId);
         List<PhotoDto> dtos = new ArrayList<>();
         for (Photo p : photos)
-            dtos.add(PhotoDto.from(p));
+            dtos.add(PhotoDto.from(p, urlSigner.url(p)));
         return dtos;
     }
 
+    /**
+     * Newest photos across approved events, {@code limit} at a time. Pages are keyed on
+     * (createdAt, id) rather than an offset, so each one is an index range scan and
+     * uploads arriving meanwhile don't shift it. The cursor for the next page comes back
+     * in X-Next-Cursor and is absent on the last page.
+     */
+    @GetMapping("/photos/feed")
+    public ResponseEntity<List<PhotoDto>> feed(@RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1) limit = 1;
+        if (limit > 100) limit = 100;
+        // one extra row tells whether another page exists
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<PhotoRepository.FeedRow> rows;
+        if (after == null || after.isBlank()) {
+            rows = photoRepo.findFeed(page);
+        } else {
+            FeedCursor cursor = FeedCursor.parse(after);
+            rows = photoRepo.findFeedAfter(cursor.createdAt(), cursor.id(), page);
+        }
+
+        List<PhotoDto> dtos = new ArrayList<>();
+        for (PhotoRepository.FeedRow row : rows.subList(0, Math.min(limit, rows.size())))
+            dtos.add(PhotoDto.from(row, urlSigner.url(row.getId(), row.getStoragePath(), row.getContentType(),
+                    row.getContentHash())));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() > limit) {
+            PhotoRepository.FeedRow last = rows.get(limit - 1);
+            response.header("X-Next-Cursor", new FeedCursor(last.getCreatedAt(), last.getId()).format());
+        }
+        return response.body(dtos);
+    }
+
+    /** Position in the feed: the last photo a page returned. Opaque to clients. */
+    private record FeedCursor(Instant createdAt, UUID id) {
+
+        String format() {
+            String raw = createdAt.getEpochSecond() + "." + createdAt.getNano() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static FeedCursor parse(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int bar = raw.indexOf('|');
+                int dot = raw.indexOf('.');
+                if (bar < 0 || dot < 0 || dot > bar)
+                    throw new IllegalArgumentException(raw);
+                Instant at = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)),
+                        Long.parseLong(raw.substring(dot + 1, bar)));
+                return new FeedCursor(at, UUID.fromString(raw.substring(bar + 1)));
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+            }
+        }
+    }
+
     @PostMapping(path = "/events/{eventId}/photos", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public List<PhotoDto> upload(
-            @PathVariable UUID eventId,
-            @RequestParam("files") List<MultipartFile> files,
-            HttpServletRequest request) throws IOException {
+    public List<PhotoDto> upload(@PathVariable UUID eventId, HttpServletRequest request) throws IOException {
         Event ev = eventRepo.findById(eventId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         ensureOrganizer(request, ev);
 
-        if (files == null || files.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No files uploaded");
+        // parts are streamed, validated and stored as they arrive; see PhotoIngestService
+        List<PhotoDto> result = new ArrayList<>();
+        for (Photo p : ingest.ingest(ev, request))
+            result.add(PhotoDto.from(p, urlSigner.url(p)));
+        return result;
+    }
+
+    /**
+     * All photos of the event as one ZIP, built while it is sent. Entries come in upload
+     * order and are STORED, so the archive's bytes (and length) are stable and a single
+     * Range, guarded by If-Range on the ETag, resumes an interrupted download.
+     */
+    @GetMapping("/events/{eventId}/photos.zip")
+    public ResponseEntity<StreamingResponseBody> zip(@PathVariable UUID eventId, HttpServletRequest request)
+            throws IOException {
+        Event ev = eventRepo.findById(eventId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        List<Photo> photos = photoRepo.findByEventIdOrderByCreatedAtAsc(eventId);
+
+        List<StoredZipWriter.Entry> entries = new ArrayList<>();
+        MessageDigest sha = PhotoBlobService.sha256();
+        String width = "%0" + Math.max(2, String.valueOf(photos.size()).length()) + "d-%s";
+        for (Photo p : photos) {
+            String key = p.getStoragePath();
+            long size = storage.size(key);
+            if (size < 0)
+                continue; // file lost from storage: leave it out rather than break the archive
+            String name = String.format(width, entries.size() + 1, zipEntryName(p.getOriginalFilename()));
+            entries.add(new StoredZipWriter.Entry(name, size, p.getCreatedAt(), () -> storage.open(key)));
+            sha.update((name + "|" + size + "|" + p.getCreatedAt() + "|"
+                    + (p.getContentHash() != null ? p.getContentHash() : key) + "\n").getBytes(StandardCharsets.UTF_8));
         }
 
-        List<PhotoDto> result = new ArrayList<>();
-        Path folder = eventFolder(eventId);
+        StoredZipWriter zip;
+        try {
+            zip = new StoredZipWriter(entries);
+        } catch (StoredZipWriter.TooLargeException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Too many photos for one ZIP download");
+        }
+        long length = zip.length();
+        String etag = "\"" + HexFormat.of().formatHex(sha.digest()) + "\"";
 
-        for (MultipartFile file : files) {
-            if (file.isEmpty())
-                continue;
-            if (!isImage(file)) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only JPEG/PNG allowed");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(zipEntryName(ev.getTitle()) + "-photos.zip", StandardCharsets.UTF_8).build());
+        headers.setETag(etag);
+        headers.setCacheControl(CacheControl.noCache());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        long from = 0;
+        long to = length - 1;
+        HttpStatus status = HttpStatus.OK;
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] r = parseRange(range, length);
+            if (r == null) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
             }
-            if (file.getSize() > 10 * 1024 * 1024L) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File too large (max 10MB)");
+            if (r.length == 2) {
+                from = r[0];
+                to = r[1];
+                status = HttpStatus.PARTIAL_CONTENT;
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + from + "-" + to + "/" + length);
             }
+        }
+        headers.setContentLength(to - from + 1);
 
-            String ext = MediaType.IMAGE_PNG_VALUE.equalsIgnoreCase(file.getContentType()) ? ".png" : ".jpg";
-            String cleanName = StringUtils.hasText(file.getOriginalFilename())
-                    ? Paths.get(file.getOriginalFilename()).getFileName().toString()
-                    : "upload";
-            UUID id = UUID.randomUUID();
-            Path dest = folder.resolve(id.toString() + ext);
-
-            Files.copy(file.getInputStream(), dest, StandardCopyOption.REPLACE_EXISTING);
-
-            Photo p = new Photo();
-            p.setId(id);
-            p.setEvent(ev);
-            p.setOriginalFilename(cleanName);
-            p.setContentType(file.getContentType());
-            p.setSizeBytes(file.getSize());
-            p.setStoragePath(dest.toString());
-            photoRepo.save(p);
+        long start = from;
+        long end = to;
+        return new ResponseEntity<>(out -> zip.write(out, start, end), headers, status);
+    }
 
-            result.add(PhotoDto.from(p));
+    // single "bytes=a-b" / "a-" / "-n" range; empty array = ignore (e.g. multipart), null = unsatisfiable
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0)
+            return new long[0];
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        try {
+            if (dash < 0)
+                return new long[0];
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0 || length == 0)
+                    return null;
+                return new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+            long first = Long.parseLong(spec.substring(0, dash));
+            long last = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+            if (first >= length || last < first)
+                return null;
+            return new long[] { first, Math.min(last, length - 1) };
+        } catch (NumberFormatException e) {
+            return new long[0];
         }
+    }
 
-        return result;
+    private static String zipEntryName(String name) {
+        if (name == null || name.isBlank())
+            return "photo";
+        StringBuilder sb = new StringBuilder();
+        for (char c : name.toCharArray())
+            sb.append(c < 0x20 || c == '/' || c == '\\' || c == ':' || c == '"' ? '_' : c);
+        return sb.toString();
     }
 
     @DeleteMapping("/photos/{photoId}")
@@ -150,24 +300,158 @@ public class PhotoApi {
         Event ev = p.getEvent();
         ensureOrganizer(request, ev);
 
-        try {
-            Files.deleteIfExists(Paths.get(p.getStoragePath()));
-        } catch (IOException ignored) {
-        }
+        blobs.release(p);
         photoRepo.delete(p);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/photos/{photoId}/raw")
-    public ResponseEntity<FileSystemResource> raw(@PathVariable UUID photoId) {
+    public ResponseEntity<?> raw(@PathVariable UUID photoId, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PhotoSize variant = PhotoSize.fromParam(size);
         Photo p = photoRepo.findById(photoId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        FileSystemResource resource = new FileSystemResource(p.getStoragePath());
-        if (!resource.exists())
+        // null for uploads PhotoHashBackfillService hasn't hashed yet: served without an ETag
+        return serve(photoId, p.getStoragePath(), p.getContentType(), p.getContentHash(), variant, request, response);
+    }
+
+    /** Same as {@link #raw} but everything needed comes from the signed token: no JPA access. */
+    @GetMapping("/photos/signed/{token}")
+    public ResponseEntity<?> signedRaw(@PathVariable String token, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PhotoSize variant = PhotoSize.fromParam(size);
+        PhotoUrlSigner.SignedPhoto signed = urlSigner.verify(token);
+        return serve(signed.photoId(), signed.storageKey(), signed.contentType(), signed.contentHash(), variant,
+                request, response);
+    }
+
+    private record Negotiated(PhotoRendition rendition, String key, long length) {
+    }
+
+    /**
+     * Picks the rendition of a size to send: the one the Accept header ranks highest,
+     * the smallest on a tie. The low-quality JPEG is only a candidate when the client
+     * sends {@code Save-Data: on}. Null if no acceptable rendition is ready yet; 406
+     * if generation is over and the client accepts none of the renditions there are.
+     */
+    private Negotiated negotiate(UUID photoId, String original, PhotoSize size, HttpServletRequest request)
+            throws IOException {
+        List<MediaType> accepted;
+        try {
+            String accept = request.getHeader(HttpHeaders.ACCEPT);
+            accepted = accept == null || accept.isBlank() ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            accepted = List.of(MediaType.ALL);
+        }
+        boolean saveData = "on".equalsIgnoreCase(Optional.ofNullable(request.getHeader(SAVE_DATA)).orElse("").trim());
+
+        Negotiated best = null;
+        double bestQ = 0;
+        boolean generated = false;
+        for (PhotoRendition r : PhotoRendition.values()) {
+            if (r == PhotoRendition.LITE && !saveData)
+                continue;
+            String key = PhotoDerivativeService.variantKey(original, size, r);
+            long length = storage.size(key);
+            if (length < 0)
+                continue;
+            generated = true;
+            double q = quality(accepted, MediaType.parseMediaType(r.contentType()));
+            if (q > bestQ || (q > 0 && q == bestQ && length < best.length())) {
+                best = new Negotiated(r, key, length);
+                bestQ = q;
+            }
+        }
+        if (best == null && generated && !derivatives.isPending(photoId))
+            throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "No acceptable image format");
+        return best;
+    }
+
+    // q-value of the most specific Accept range that covers the type (0 = not acceptable)
+    private static double quality(List<MediaType> accepted, MediaType type) {
+        double q = 0;
+        int specificity = -1;
+        for (MediaType range : accepted) {
+            if (!range.includes(type))
+                continue;
+            int s = range.isWildcardType() ? 0 : range.isWildcardSubtype() ? 1 : 2;
+            if (s > specificity) {
+                specificity = s;
+                q = range.getQualityValue();
+            }
+        }
+        return q;
+    }
+
+    private ResponseEntity<?> serve(UUID photoId, String original, String contentType, String contentHash,
+            PhotoSize variant, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String key = original;
+        long length;
+        PhotoRendition rendition = null;
+        try {
+            if (variant != null) {
+                Negotiated best = negotiate(photoId, original, variant, request);
+                if (best != null) {
+                    rendition = best.rendition();
+                    key = best.key();
+                }
+                length = best != null ? best.length() : -1;
+            } else {
+                length = storage.size(key);
+            }
+        } catch (IllegalArgumentException e) { // key escapes the storage root
             throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        if (length < 0 && variant != null && derivatives.isUndecodable(original)) {
+            // no variant will ever exist: hand out the original instead of a placeholder
+            key = original;
+            rendition = null;
+            length = storage.size(original);
+        }
+        if (length < 0) {
+            if (variant == null || storage.size(original) < 0)
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            // still processing (or never queued, e.g. pool was full): serve a placeholder
+            if (!derivatives.isPending(photoId))
+                derivatives.submit(photoId, original, contentType);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    .cacheControl(CacheControl.noStore())
+                    .header("X-Photo-Pending", "true")
+                    .body(derivatives.placeholder());
+        }
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(p.getContentType()));
-        headers.setCacheControl(CacheControl.noCache());
-        return new ResponseEntity<>(resource, headers, HttpStatus.OK);
+        headers.setCacheControl(IMMUTABLE);
+        if (rendition != null)
+            headers.setVary(List.of(HttpHeaders.ACCEPT, SAVE_DATA));
+        if (contentHash != null) { // only missing for uploads from before hashes were recorded, until backfilled
+            String etag = "\"" + contentHash
+                    + (rendition != null ? "-" + variant.key() + "." + rendition.suffix() : "") + "\"";
+            headers.setETag(etag);
+            if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag))
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        headers.setContentType(MediaType.parseMediaType(rendition != null ? rendition.contentType() : contentType));
+        Optional<Path> file = storage.localFile(key);
+        if (file.isPresent()) {
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (request.getHeader(HttpHeaders.RANGE) != null) {
+                // Spring slices Resource bodies into 206/416 responses for us
+                return new ResponseEntity<>(new FileSystemResource(file.get()), headers, HttpStatus.OK);
+            }
+        }
+
+        headers.setContentLength(length);
+        headers.forEach((name, values) -> values.forEach(v -> response.addHeader(name, v)));
+        if (file.isPresent()) {
+            FileTransfer.send(request, response, file.get(), length);
+        } else {
+            // remote store: proxy the whole object (Range is optional, so it is ignored here)
+            try (InputStream in = storage.open(key)) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+        return null;
     }
 }
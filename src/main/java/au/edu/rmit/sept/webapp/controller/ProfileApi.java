@@ -9,6 +9,7 @@ import au.edu.rmit.sept.webapp.model.Rsvp;
 import au.edu.rmit.sept.webapp.repository.EventRepository;
 import au.edu.rmit.sept.webapp.repository.RsvpRepository;
 import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.service.UserPrincipalCache;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
@@ -30,11 +31,14 @@ public class ProfileApi {
     private final UserRepository userRepo;
     private final EventRepository eventRepo;
     private final RsvpRepository rsvpRepo;
+    private final UserPrincipalCache principals;
 
-    public ProfileApi(UserRepository userRepo, EventRepository eventRepo, RsvpRepository rsvpRepo) {
+    public ProfileApi(UserRepository userRepo, EventRepository eventRepo, RsvpRepository rsvpRepo,
+            UserPrincipalCache principals) {
         this.userRepo = userRepo;
         this.eventRepo = eventRepo;
         this.rsvpRepo = rsvpRepo;
+        this.principals = principals;
     }
 
     @Value("${app.jwt.secret:dev-secret-please-change}")
@@ -75,6 +79,7 @@ public class ProfileApi {
         }
         
         user = userRepo.save(user);
+        principals.evict(user.getEmail());
         return UserDto.from(user);
     }
 
@@ -8,6 +8,7 @@ import au.edu.rmit.sept.webapp.model.RsvpStatus;
 import au.edu.rmit.sept.webapp.repository.EventRepository;
 import au.edu.rmit.sept.webapp.repository.RsvpRepository;
 import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.service.UserPrincipalCache;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
@@ -18,6 +19,7 @@ import org.springframework.web.server.ResponseStatusException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -27,11 +29,14 @@ public class RsvpApi {
     private final RsvpRepository rsvpRepo;
     private final UserRepository userRepo;
     private final EventRepository eventRepo;
+    private final UserPrincipalCache principals;
 
-    public RsvpApi(RsvpRepository rsvpRepo, UserRepository userRepo, EventRepository eventRepo) {
+    public RsvpApi(RsvpRepository rsvpRepo, UserRepository userRepo, EventRepository eventRepo,
+            UserPrincipalCache principals) {
         this.rsvpRepo = rsvpRepo;
         this.userRepo = userRepo;
         this.eventRepo = eventRepo;
+        this.principals = principals;
     }
 
     @Value("${app.jwt.secret:dev-secret-please-change}")
@@ -51,8 +56,13 @@ public class RsvpApi {
         return s.toLowerCase();
     }
 
+    // RSVP rows only need the user's id, so a lazy reference avoids loading the row
+    private Optional<AppUser> findUser(String email) {
+        return principals.findByEmail(email).map(p -> userRepo.getReferenceById(p.id()));
+    }
+
     private AppUser getOrCreateUser(String email) {
-        return userRepo.findByEmail(email).orElseGet(() -> {
+        return findUser(email).orElseGet(() -> {
             AppUser u = new AppUser();
             u.setEmail(email);
             u.setName(email);
@@ -75,7 +85,7 @@ public class RsvpApi {
     @GetMapping("/my")
     public List<RsvpDto> myRsvps(HttpServletRequest request) {
         String email = requireEmail(request);
-        AppUser me = userRepo.findByEmail(email).orElse(null);
+        AppUser me = findUser(email).orElse(null);
         if (me == null) return List.of();
         return rsvpRepo.findByUser(me).stream().map(RsvpApi::toDto).toList();
     }
@@ -114,7 +124,7 @@ public class RsvpApi {
     @DeleteMapping("/by-event/{eventId}")
     public void deleteMyRsvp(HttpServletRequest request, @PathVariable UUID eventId) {
         String email = requireEmail(request);
-        AppUser me = userRepo.findByEmail(email).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "user not found"));
+        AppUser me = findUser(email).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "user not found"));
         Event ev = eventRepo.findById(eventId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "event not found"));
         rsvpRepo.findByUserAndEvent(me, ev).ifPresent(rsvpRepo::delete);
     }
@@ -0,0 +1,37 @@
+package au.edu.rmit.sept.webapp.dto;
+
+import au.edu.rmit.sept.webapp.model.ExportJob;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class ExportJobDto {
+    public UUID id;
+    public String dataset;      // EVENTS | RSVPS | FEEDBACK | AUDIT_LOG
+    public String format;       // CSV | NDJSON
+    public String status;       // QUEUED | RUNNING | DONE | FAILED
+    public Instant createdAt;
+    public Instant startedAt;
+    public Instant finishedAt;
+    public long rowCount;
+    public long sizeBytes;      // of the gzipped file
+    public String error;
+    public String downloadUrl;  // set once DONE
+
+    public static ExportJobDto from(ExportJob j) {
+        ExportJobDto d = new ExportJobDto();
+        d.id = j.getId();
+        d.dataset = j.getDataset().name();
+        d.format = j.getFormat().name();
+        d.status = j.getStatus().name();
+        d.createdAt = j.getCreatedAt();
+        d.startedAt = j.getStartedAt();
+        d.finishedAt = j.getFinishedAt();
+        d.rowCount = j.getRowCount();
+        d.sizeBytes = j.getSizeBytes();
+        d.error = j.getError();
+        if (j.getStatus() == ExportJob.Status.DONE)
+            d.downloadUrl = "/api/admin/exports/" + j.getId() + "/file";
+        return d;
+    }
+}
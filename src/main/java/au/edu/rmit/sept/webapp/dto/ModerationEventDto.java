@@ -0,0 +1,33 @@
+package au.edu.rmit.sept.webapp.dto;
+
+import au.edu.rmit.sept.webapp.repository.EventRepository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** A row of the admin moderation queue. Editing loads the full event from /api/events/{id}. */
+public class ModerationEventDto {
+    public UUID id;
+    public String title;
+    public String excerpt;      // first 200 chars of the description
+    public LocalDateTime startTime;
+    public String location;
+    public String category;
+    public String organizerEmail;
+    public String approvalStatus; // PENDING | APPROVED | REJECTED
+    public String rejectionReason;
+
+    public static ModerationEventDto from(EventRepository.ModerationRow row) {
+        ModerationEventDto d = new ModerationEventDto();
+        d.id = row.getId();
+        d.title = row.getTitle();
+        d.excerpt = row.getExcerpt();
+        d.startTime = row.getStartTime();
+        d.location = row.getLocation();
+        d.category = row.getCategory();
+        d.organizerEmail = row.getOrganizerEmail();
+        d.approvalStatus = row.getApprovalStatus();
+        d.rejectionReason = row.getRejectionReason();
+        return d;
+    }
+}
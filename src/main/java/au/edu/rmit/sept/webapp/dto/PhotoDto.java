@@ -1,28 +1,51 @@
 package au.edu.rmit.sept.webapp.dto;
 
 import au.edu.rmit.sept.webapp.model.Photo;
+import au.edu.rmit.sept.webapp.model.PhotoSize;
+import au.edu.rmit.sept.webapp.repository.PhotoRepository;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 public class PhotoDto {
     public UUID id;
     public UUID eventId;
-    public String url;          // /api/photos/{id}/raw
+    public String url;          // /api/photos/signed/{token} (or /api/photos/{id}/raw)
+    public Map<String, String> variants; // thumb|medium|full -> url + "?size=..."
     public String contentType;  // image/jpeg | image/png
     public long sizeBytes;
     public String originalFilename;
     public Instant createdAt;
 
     public static PhotoDto from(Photo p) {
+        return from(p, "/api/photos/" + p.getId() + "/raw");
+    }
+
+    public static PhotoDto from(Photo p, String url) {
+        return of(p.getId(), p.getEvent().getId(), url, p.getContentType(), p.getSizeBytes(),
+                p.getOriginalFilename(), p.getCreatedAt());
+    }
+
+    public static PhotoDto from(PhotoRepository.FeedRow row, String url) {
+        return of(row.getId(), row.getEventId(), url, row.getContentType(), row.getSizeBytes(),
+                row.getOriginalFilename(), row.getCreatedAt());
+    }
+
+    private static PhotoDto of(UUID id, UUID eventId, String url, String contentType, long sizeBytes,
+            String originalFilename, Instant createdAt) {
         PhotoDto dto = new PhotoDto();
-        dto.id = p.getId();
-        dto.eventId = p.getEvent().getId();
-        dto.url = "/api/photos/" + p.getId() + "/raw";
-        dto.contentType = p.getContentType();
-        dto.sizeBytes = p.getSizeBytes();
-        dto.originalFilename = p.getOriginalFilename();
-        dto.createdAt = p.getCreatedAt();
+        dto.id = id;
+        dto.eventId = eventId;
+        dto.url = url;
+        dto.variants = new LinkedHashMap<>();
+        for (PhotoSize size : PhotoSize.values())
+            dto.variants.put(size.key(), dto.url + "?size=" + size.key());
+        dto.contentType = contentType;
+        dto.sizeBytes = sizeBytes;
+        dto.originalFilename = originalFilename;
+        dto.createdAt = createdAt;
         return dto;
     }
 }
@@ -0,0 +1,68 @@
+package au.edu.rmit.sept.webapp.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * How many RSVPs, registrations or events were created in one UTC hour, or in one
+ * UTC day once AnalyticsRollupService has compacted the closed hours. The primary key
+ * (metric, bucketStart) is also the index a timeseries query ranges over.
+ */
+@Entity
+@Table(name = "activity_buckets")
+public class ActivityBucket {
+
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(length = 20)
+        private String metric; // rsvps | registrations | events
+
+        private Instant bucketStart;
+
+        protected Key() {
+        }
+
+        public Key(String metric, Instant bucketStart) {
+            this.metric = metric;
+            this.bucketStart = bucketStart;
+        }
+
+        public String getMetric() { return metric; }
+        public Instant getBucketStart() { return bucketStart; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(metric, k.metric) && Objects.equals(bucketStart, k.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(metric, bucketStart);
+        }
+    }
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false, length = 4)
+    private String width; // HOUR | DAY
+
+    @Column(nullable = false)
+    private long total;
+
+    protected ActivityBucket() {
+    }
+
+    public ActivityBucket(String metric, Instant bucketStart, String width, long total) {
+        this.id = new Key(metric, bucketStart);
+        this.width = width;
+        this.total = total;
+    }
+
+    // getters
+    public Key getId() { return id; }
+    public String getWidth() { return width; }
+    public long getTotal() { return total; }
+}
@@ -5,17 +5,25 @@ import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import au.edu.rmit.sept.webapp.service.CalendarFeedListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
 @Entity
+@EntityListeners(CalendarFeedListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
-@Table(name = "app_user", uniqueConstraints = @UniqueConstraint(columnNames = "email"))
+@Table(name = "app_user", uniqueConstraints = @UniqueConstraint(columnNames = "email"), indexes = {
+      @Index(name = "idx_app_user_name", columnList = "name"), // admin search by name prefix
+      @Index(name = "idx_app_user_role", columnList = "role, email")
+})
 public class AppUser {
    @Column(nullable = false)
    private boolean active = true;
@@ -42,6 +50,10 @@ public class AppUser {
    @Column(name = "created_at")
    private LocalDateTime createdAt;
 
+   // signed into the calendar feed token; bumping it revokes the old subscription link
+   @Column(nullable = false)
+   private int calendarTokenVersion;
+
    @PrePersist
    public void prePersist() {
       if (createdAt == null) createdAt = LocalDateTime.now();
@@ -110,4 +122,12 @@ public class AppUser {
    public void setCreatedAt(LocalDateTime createdAt) {
       this.createdAt = createdAt;
    }
+
+   public int getCalendarTokenVersion() {
+      return calendarTokenVersion;
+   }
+
+   public void setCalendarTokenVersion(int calendarTokenVersion) {
+      this.calendarTokenVersion = calendarTokenVersion;
+   }
 }
@@ -1,11 +1,20 @@
 package au.edu.rmit.sept.webapp.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.Instant;
+import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "audit_log")
+@Table(name = "audit_log", indexes = {
+        // newest-first listing, unfiltered or by one of the filter columns
+        @Index(name = "idx_audit_log_ts", columnList = "ts, id"),
+        @Index(name = "idx_audit_log_action", columnList = "action, ts, id"),
+        @Index(name = "idx_audit_log_actor", columnList = "actorUserId, ts, id"),
+        @Index(name = "idx_audit_log_subject", columnList = "subjectId, ts, id")
+})
 public class AuditLog {
     @Id
     @GeneratedValue
@@ -24,8 +33,9 @@ public class AuditLog {
     @Column
     private UUID subjectId; // eventId or userId
 
-    @Lob
-    private String meta; // optional JSON/text
+    // a native JSON column (MySQL json, H2 JSON), so its fields can be queried with JSON functions
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> meta; // optional details
 
     public UUID getId() {
         return id;
@@ -63,11 +73,11 @@ public class AuditLog {
         this.subjectId = subjectId;
     }
 
-    public String getMeta() {
+    public Map<String, Object> getMeta() {
         return meta;
     }
 
-    public void setMeta(String meta) {
+    public void setMeta(Map<String, Object> meta) {
         this.meta = meta;
     }
 }
@@ -7,17 +7,26 @@ import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import au.edu.rmit.sept.webapp.service.CalendarFeedListener;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 @Entity
+@EntityListeners(CalendarFeedListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "idx_events_status_start", columnList = "approvalStatus, startTime, id"), // moderation queue
+        @Index(name = "idx_events_start", columnList = "startTime, id")
+})
 public class Event {
     @Id
     @GeneratedValue
@@ -63,6 +72,15 @@ public class Event {
     @Column(length = 200)
     private String organizerEmail;
 
+    // null for events created before this column existed
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) createdAt = LocalDateTime.now();
+    }
+
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Rsvp> rsvps = new ArrayList<>();
 
@@ -122,4 +140,12 @@ public class Event {
     public void setOrganizerEmail(String organizerEmail) {
         this.organizerEmail = organizerEmail;
     }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
 }
@@ -0,0 +1,34 @@
+package au.edu.rmit.sept.webapp.model;
+
+import jakarta.persistence.*;
+import java.util.UUID;
+
+/**
+ * Rollup of one event for the admin dashboard, kept in step with Event and Rsvp writes
+ * by AnalyticsRollupService. No foreign key: the row goes in the same transaction as
+ * its event.
+ */
+@Entity
+@Table(name = "event_stats", indexes = {
+        @Index(name = "idx_event_stats_rsvps", columnList = "rsvpCount")
+})
+public class EventStats {
+    @Id
+    private UUID eventId;
+
+    @Column(length = 200)
+    private String organizerEmail; // copied from the event so RSVP deltas reach the organizer
+
+    @Column(nullable = false)
+    private long rsvpCount;
+
+    // getters / setters
+    public UUID getEventId() { return eventId; }
+    public void setEventId(UUID eventId) { this.eventId = eventId; }
+
+    public String getOrganizerEmail() { return organizerEmail; }
+    public void setOrganizerEmail(String organizerEmail) { this.organizerEmail = organizerEmail; }
+
+    public long getRsvpCount() { return rsvpCount; }
+    public void setRsvpCount(long rsvpCount) { this.rsvpCount = rsvpCount; }
+}
@@ -0,0 +1,108 @@
+package au.edu.rmit.sept.webapp.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An admin data dump, written in the background by ExportJobService. The row is
+ * the job's status; the gzipped file is kept in the shared photo storage under
+ * {@code exports/}, so any instance can serve it.
+ */
+@Entity
+@Table(name = "export_jobs", indexes = {
+        @Index(name = "idx_export_jobs_finished", columnList = "finishedAt")
+})
+public class ExportJob {
+
+    public enum Dataset { EVENTS, RSVPS, FEEDBACK, AUDIT_LOG }
+
+    public enum Format { CSV, NDJSON }
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Dataset dataset;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Format format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status = Status.QUEUED;
+
+    @Column(nullable = false)
+    private UUID requestedBy;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    // refreshed while the job is queued or running on some instance; a stale one means that instance is gone
+    private Instant heartbeatAt;
+
+    @Column(nullable = false)
+    private long rowCount;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    @Column(length = 500)
+    private String error;
+
+    // bumped when another instance fails the job as abandoned, so the runner's late save cannot undo that
+    @Version
+    private long version;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+
+    // getters / setters
+    public UUID getId() { return id; }
+
+    public Dataset getDataset() { return dataset; }
+    public void setDataset(Dataset dataset) { this.dataset = dataset; }
+
+    public Format getFormat() { return format; }
+    public void setFormat(Format format) { this.format = format; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public UUID getRequestedBy() { return requestedBy; }
+    public void setRequestedBy(UUID requestedBy) { this.requestedBy = requestedBy; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public Instant getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(Instant heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+
+    public long getRowCount() { return rowCount; }
+    public void setRowCount(long rowCount) { this.rowCount = rowCount; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public long getVersion() { return version; }
+}
@@ -0,0 +1,30 @@
+package au.edu.rmit.sept.webapp.model;
+
+import jakarta.persistence.*;
+
+/** Rollup of one organizer's events and the RSVPs they drew; see {@link EventStats}. */
+@Entity
+@Table(name = "organizer_stats", indexes = {
+        @Index(name = "idx_organizer_stats_rsvps", columnList = "totalRsvps")
+})
+public class OrganizerStats {
+    @Id
+    @Column(length = 200)
+    private String organizerEmail;
+
+    @Column(nullable = false)
+    private long eventsCreated;
+
+    @Column(nullable = false)
+    private long totalRsvps;
+
+    // getters / setters
+    public String getOrganizerEmail() { return organizerEmail; }
+    public void setOrganizerEmail(String organizerEmail) { this.organizerEmail = organizerEmail; }
+
+    public long getEventsCreated() { return eventsCreated; }
+    public void setEventsCreated(long eventsCreated) { this.eventsCreated = eventsCreated; }
+
+    public long getTotalRsvps() { return totalRsvps; }
+    public void setTotalRsvps(long totalRsvps) { this.totalRsvps = totalRsvps; }
+}
@@ -6,7 +6,9 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "photos", indexes = {
-        @Index(name = "idx_photos_event", columnList = "event_id")
+        @Index(name = "idx_photos_event", columnList = "event_id"),
+        @Index(name = "idx_photos_storage_path", columnList = "storagePath"),
+        @Index(name = "idx_photos_created", columnList = "createdAt, id") // keyset order of the photo feed
 })
 public class Photo {
     @Id
@@ -27,7 +29,10 @@ public class Photo {
     private long sizeBytes;
 
     @Column(nullable = false, length = 300)
-    private String storagePath; // absolute or relative on disk
+    private String storagePath; // PhotoStorage key (absolute path for old uploads)
+
+    @Column(length = 64)
+    private String contentHash; // hex SHA-256 of the original bytes, used as ETag
 
     @Column(nullable = false)
     private Instant createdAt;
@@ -56,6 +61,9 @@ public class Photo {
     public String getStoragePath() { return storagePath; }
     public void setStoragePath(String storagePath) { this.storagePath = storagePath; }
 
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 }
@@ -0,0 +1,57 @@
+package au.edu.rmit.sept.webapp.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * One stored file, shared by every {@link Photo} with the same bytes. Photos point
+ * at it through {@code contentHash}; the file is removed when refCount reaches zero.
+ */
+@Entity
+@Table(name = "photo_blobs", indexes = {
+        @Index(name = "idx_photo_blobs_storage_path", columnList = "storagePath")
+})
+public class PhotoBlob {
+    @Id
+    @Column(length = 64)
+    private String hash; // hex SHA-256
+
+    @Column(nullable = false, length = 300)
+    private String storagePath;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+
+    // getters / setters
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public String getStoragePath() { return storagePath; }
+    public void setStoragePath(String storagePath) { this.storagePath = storagePath; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,54 @@
+package au.edu.rmit.sept.webapp.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A storage key waiting to be removed by the photo reaper. Written in the same
+ * transaction as the delete that freed it, so a crash never leaks the file.
+ */
+@Entity
+@Table(name = "photo_deletions", indexes = {
+        @Index(name = "idx_photo_deletions_queue", columnList = "attempts, enqueuedAt"),
+        // reconcile() asks existsByStorageKey once per orphan candidate
+        @Index(name = "idx_photo_deletions_key", columnList = "storageKey")
+})
+public class PhotoDeletion {
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false, length = 300)
+    private String storageKey;
+
+    @Column(nullable = false)
+    private Instant enqueuedAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    public PhotoDeletion() {
+    }
+
+    public PhotoDeletion(String storageKey) {
+        this.storageKey = storageKey;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        if (enqueuedAt == null) enqueuedAt = Instant.now();
+    }
+
+    // getters / setters
+    public UUID getId() { return id; }
+
+    public String getStorageKey() { return storageKey; }
+    public void setStorageKey(String storageKey) { this.storageKey = storageKey; }
+
+    public Instant getEnqueuedAt() { return enqueuedAt; }
+    public void setEnqueuedAt(Instant enqueuedAt) { this.enqueuedAt = enqueuedAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+}
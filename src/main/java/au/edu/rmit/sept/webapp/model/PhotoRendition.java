@@ -0,0 +1,27 @@
+package au.edu.rmit.sept.webapp.model;
+
+/**
+ * Encodings a photo derivative may be stored in. Each {@link PhotoSize} gets a
+ * progressive JPEG and a low-quality JPEG for Save-Data clients; PNG uploads also
+ * keep a lossless PNG (the only one for images with transparency).
+ */
+public enum PhotoRendition {
+  JPEG("jpg", "image/jpeg"), LITE("lite.jpg", "image/jpeg"), PNG("png", "image/png");
+
+  private final String suffix;
+  private final String contentType;
+
+  PhotoRendition(String suffix, String contentType) {
+    this.suffix = suffix;
+    this.contentType = contentType;
+  }
+
+  /** File suffix after the size, e.g. {@code abc.thumb.lite.jpg}. */
+  public String suffix() {
+    return suffix;
+  }
+
+  public String contentType() {
+    return contentType;
+  }
+}
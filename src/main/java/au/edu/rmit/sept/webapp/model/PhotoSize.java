@@ -0,0 +1,32 @@
+package au.edu.rmit.sept.webapp.model;
+
+import java.util.Locale;
+
+/** Derivative sizes generated for each uploaded photo (longest edge in pixels). */
+public enum PhotoSize {
+  THUMB(256), MEDIUM(1024), FULL(2048);
+
+  private final int maxEdge;
+
+  PhotoSize(int maxEdge) {
+    this.maxEdge = maxEdge;
+  }
+
+  public int getMaxEdge() {
+    return maxEdge;
+  }
+
+  public String key() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  /** Parses the {@code size} query parameter; null/blank means the original upload. */
+  public static PhotoSize fromParam(String value) {
+    if (value == null || value.isBlank()) return null;
+    try {
+      return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("invalid size. Valid sizes: thumb, medium, full");
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package au.edu.rmit.sept.webapp.repository;
+
+import au.edu.rmit.sept.webapp.model.ActivityBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ActivityBucketRepository extends JpaRepository<ActivityBucket, ActivityBucket.Key> {
+
+    // a primary key range: hourly rows for recent days, one row per day before that
+    @Query("""
+           select b from ActivityBucket b
+           where b.id.metric = :metric and b.id.bucketStart >= :from and b.id.bucketStart < :to
+           order by b.id.bucketStart
+           """)
+    List<ActivityBucket> findRange(@Param("metric") String metric, @Param("from") Instant from, @Param("to") Instant to);
+}
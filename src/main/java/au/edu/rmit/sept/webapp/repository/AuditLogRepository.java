@@ -1,9 +1,26 @@
 package au.edu.rmit.sept.webapp.repository;
 
 import au.edu.rmit.sept.webapp.model.AuditLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public interface AuditLogRepository extends JpaRepository<AuditLog, UUID> {
+
+    // Newest first in (ts, id) order; null arguments don't filter, so each filter can
+    // walk its (column, ts, id) index. beforeTs/beforeId is the last entry of the previous page.
+    @Query("""
+           select a from AuditLog a
+           where (:action is null or a.action = :action)
+             and (:actorUserId is null or a.actorUserId = :actorUserId)
+             and (:subjectId is null or a.subjectId = :subjectId)
+             and (:beforeTs is null or a.ts < :beforeTs or (a.ts = :beforeTs and a.id < :beforeId))
+           order by a.ts desc, a.id desc
+           """)
+    List<AuditLog> findPage(String action, UUID actorUserId, UUID subjectId, Instant beforeTs, UUID beforeId,
+            Pageable pageable);
 }
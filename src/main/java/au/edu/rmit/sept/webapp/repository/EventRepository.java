@@ -46,7 +46,41 @@ public interface EventRepository extends JpaRepository<Event, UUID>, JpaSpecific
     long countByOrganizerEmailIgnoreCase(String organizerEmail);
 
     // Admin queries
-    java.util.List<Event> findByApprovalStatusOrderByStartTimeAsc(String approvalStatus);
+    interface ModerationRow {
+        UUID getId();
+        String getTitle();
+        String getExcerpt();
+        java.time.LocalDateTime getStartTime();
+        String getLocation();
+        String getCategory();
+        String getOrganizerEmail();
+        String getApprovalStatus();
+        String getRejectionReason();
+    }
 
-    java.util.List<Event> findAllByOrderByStartTimeAsc();
+    // Moderation queue in (startTime, id) order; null arguments don't filter. text is a
+    // lowercase LIKE pattern; afterStart/afterId is the last row of the previous page.
+    @Query("""
+           select e.id as id, e.title as title, substring(e.description, 1, 200) as excerpt,
+                  e.startTime as startTime, e.location as location, e.category as category,
+                  e.organizerEmail as organizerEmail, e.approvalStatus as approvalStatus,
+                  e.rejectionReason as rejectionReason
+           from Event e
+           where (:status is null or e.approvalStatus = :status)
+             and (:category is null or e.category = :category)
+             and (:from is null or e.startTime >= :from)
+             and (:to is null or e.startTime < :to)
+             and (:text is null or lower(e.title) like :text escape '\\' or lower(e.category) like :text escape '\\')
+             and (:afterStart is null or e.startTime > :afterStart or (e.startTime = :afterStart and e.id > :afterId))
+           order by e.startTime asc, e.id asc
+           """)
+    List<ModerationRow> findForModeration(String status, String category, java.time.LocalDateTime from,
+            java.time.LocalDateTime to, String text, java.time.LocalDateTime afterStart, UUID afterId,
+            Pageable pageable);
+
+    // Calendar feed (recent and upcoming, APPROVED only)
+    List<Event> findByApprovalStatusAndStartTimeAfterOrderByStartTimeAsc(String approvalStatus, java.time.LocalDateTime after);
+
+    List<Event> findByApprovalStatusAndCategoryIgnoreCaseAndStartTimeAfterOrderByStartTimeAsc(String approvalStatus,
+            String category, java.time.LocalDateTime after);
 }
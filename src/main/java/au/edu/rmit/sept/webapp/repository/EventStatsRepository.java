@@ -0,0 +1,27 @@
+package au.edu.rmit.sept.webapp.repository;
+
+import au.edu.rmit.sept.webapp.model.EventStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface EventStatsRepository extends JpaRepository<EventStats, UUID> {
+
+    interface PopularRow {
+        UUID getId();
+        String getTitle();
+        long getRsvpCount();
+    }
+
+    // Most-RSVP'd approved events, walking idx_event_stats_rsvps backwards
+    @Query("""
+           select e.id as id, e.title as title, s.rsvpCount as rsvpCount
+           from EventStats s join Event e on e.id = s.eventId
+           where e.approvalStatus = 'APPROVED'
+           order by s.rsvpCount desc, s.eventId
+           """)
+    List<PopularRow> findPopularApproved(Pageable pageable);
+}
@@ -0,0 +1,32 @@
+package au.edu.rmit.sept.webapp.repository;
+
+import au.edu.rmit.sept.webapp.model.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ExportJobRepository extends JpaRepository<ExportJob, UUID> {
+    List<ExportJob> findByFinishedAtBefore(Instant cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("update ExportJob j set j.heartbeatAt = :now where j.id in :ids")
+    int touch(Collection<UUID> ids, Instant now);
+
+    // jobs whose instance stopped refreshing them, i.e. crashed or was restarted; bumps the
+    // version so a runner that was only slow fails its final save instead of overwriting this
+    @Transactional
+    @Modifying
+    @Query("""
+            update ExportJob j set j.status = :failed, j.error = :error, j.finishedAt = :now, j.version = j.version + 1
+            where j.status in :unfinished and (j.heartbeatAt is null or j.heartbeatAt < :cutoff)
+            """)
+    int failStale(Collection<ExportJob.Status> unfinished, Instant cutoff, ExportJob.Status failed, String error,
+            Instant now);
+}
@@ -0,0 +1,28 @@
+package au.edu.rmit.sept.webapp.repository;
+
+import au.edu.rmit.sept.webapp.model.OrganizerStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface OrganizerStatsRepository extends JpaRepository<OrganizerStats, String> {
+
+    interface LeaderRow {
+        String getEmail();
+        String getName();
+        long getEventsCreated();
+        long getTotalRsvps();
+    }
+
+    // Organizers by RSVPs drawn, walking idx_organizer_stats_rsvps backwards; names by the unique email
+    @Query("""
+           select o.organizerEmail as email, coalesce(u.name, o.organizerEmail) as name,
+                  o.eventsCreated as eventsCreated, o.totalRsvps as totalRsvps
+           from OrganizerStats o left join AppUser u on u.email = o.organizerEmail
+           where o.eventsCreated > 0
+           order by o.totalRsvps desc, o.organizerEmail
+           """)
+    List<LeaderRow> findLeaders(Pageable pageable);
+}
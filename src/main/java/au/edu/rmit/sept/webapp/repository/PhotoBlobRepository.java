@@ -0,0 +1,89 @@
+package au.edu.rmit.sept.webapp.repository;
+
+import au.edu.rmit.sept.webapp.model.PhotoBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface PhotoBlobRepository extends JpaRepository<PhotoBlob, String> {
+    // single UPDATE statements so concurrent uploads/deletes never lose a count
+
+    @Transactional
+    @Modifying
+    @Query("update PhotoBlob b set b.refCount = b.refCount + 1 where b.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query("update PhotoBlob b set b.refCount = b.refCount - 1 where b.hash = :hash and b.refCount > 0")
+    int decrementRefCount(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query("delete from PhotoBlob b where b.hash = :hash and b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    // set-based release for every photo of some events, see PhotoBlobService.releaseEvents;
+    // a photo counts only if it points at the blob's own file (older ones own theirs outright)
+
+    @Query("""
+            select p.storagePath from Photo p where p.event.id in :eventIds
+            and not exists (select 1 from PhotoBlob b where b.hash = p.contentHash and b.storagePath = p.storagePath)
+            """)
+    List<String> findUnsharedPathsOfEvents(@Param("eventIds") Collection<UUID> eventIds);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update PhotoBlob b set b.refCount = b.refCount - (select count(p) from Photo p
+                    where p.event.id in :eventIds and p.contentHash = b.hash and p.storagePath = b.storagePath)
+            where b.hash in (select p.contentHash from Photo p where p.event.id in :eventIds)
+            """)
+    int decrementRefCountsForEvents(@Param("eventIds") Collection<UUID> eventIds);
+
+    @Query("""
+            select b.storagePath from PhotoBlob b where b.refCount <= 0
+            and b.hash in (select p.contentHash from Photo p where p.event.id in :eventIds)
+            """)
+    List<String> findUnreferencedPathsOfEvents(@Param("eventIds") Collection<UUID> eventIds);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from PhotoBlob b where b.refCount <= 0
+            and b.hash in (select p.contentHash from Photo p where p.event.id in :eventIds)
+            """)
+    int deleteUnreferencedForEvents(@Param("eventIds") Collection<UUID> eventIds);
+
+    // a plain INSERT, unlike save(), which merges an assigned id over an existing row;
+    // fails with a duplicate key when another instance stored the same bytes first
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into photo_blobs (hash, storage_path, content_type, size_bytes, ref_count, created_at)
+            values (:hash, :storagePath, :contentType, :sizeBytes, 1, :createdAt)
+            """, nativeQuery = true)
+    int insertWithOneReference(@Param("hash") String hash, @Param("storagePath") String storagePath,
+            @Param("contentType") String contentType, @Param("sizeBytes") long sizeBytes,
+            @Param("createdAt") Instant createdAt);
+
+    boolean existsByStoragePath(String storagePath);
+
+    // SELECT ... FOR UPDATE: also locks the index gap when there is no such row, so no
+    // other transaction can insert one until the caller commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from PhotoBlob b where b.storagePath = :storagePath")
+    List<PhotoBlob> lockByStoragePath(@Param("storagePath") String storagePath);
+
+    @Query("select b.storagePath from PhotoBlob b")
+    List<String> findAllStoragePaths();
+}
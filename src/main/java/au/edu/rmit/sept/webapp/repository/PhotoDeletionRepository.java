@@ -0,0 +1,15 @@
+package au.edu.rmit.sept.webapp.repository;
+
+import au.edu.rmit.sept.webapp.model.PhotoDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface PhotoDeletionRepository extends JpaRepository<PhotoDeletion, UUID> {
+    // keys that keep failing sink to the back instead of blocking the batch
+    List<PhotoDeletion> findByOrderByAttemptsAscEnqueuedAtAsc(Pageable page);
+
+    boolean existsByStorageKey(String storageKey);
+}
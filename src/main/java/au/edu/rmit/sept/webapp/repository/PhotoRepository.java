@@ -1,8 +1,13 @@
 package au.edu.rmit.sept.webapp.repository;
 
 import au.edu.rmit.sept.webapp.model.Photo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -10,4 +15,66 @@ public interface PhotoRepository extends JpaRepository<Photo, UUID> {
     List<Photo> findByEventIdOrderByCreatedAtAsc(UUID eventId);
 
     java.util.List<Photo> findByEventId(UUID eventId);
+
+    boolean existsByStoragePath(String storagePath);
+
+    @Query("select p.storagePath from Photo p")
+    List<String> findAllStoragePaths();
+
+    /** The columns the photo feed needs; the event is reduced to its id. */
+    interface FeedRow {
+        UUID getId();
+        UUID getEventId();
+        String getOriginalFilename();
+        String getContentType();
+        long getSizeBytes();
+        String getStoragePath();
+        String getContentHash();
+        Instant getCreatedAt();
+    }
+
+    // Newest photos of approved events, walking idx_photos_created backwards
+    @Query("""
+           select p.id as id, e.id as eventId, p.originalFilename as originalFilename,
+                  p.contentType as contentType, p.sizeBytes as sizeBytes, p.storagePath as storagePath,
+                  p.contentHash as contentHash, p.createdAt as createdAt
+           from Photo p join p.event e
+           where e.approvalStatus = 'APPROVED'
+           order by p.createdAt desc, p.id desc
+           """)
+    List<FeedRow> findFeed(Pageable pageable);
+
+    // Next page after (createdAt, id), exclusive
+    @Query("""
+           select p.id as id, e.id as eventId, p.originalFilename as originalFilename,
+                  p.contentType as contentType, p.sizeBytes as sizeBytes, p.storagePath as storagePath,
+                  p.contentHash as contentHash, p.createdAt as createdAt
+           from Photo p join p.event e
+           where e.approvalStatus = 'APPROVED'
+             and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
+           order by p.createdAt desc, p.id desc
+           """)
+    List<FeedRow> findFeedAfter(Instant createdAt, UUID id, Pageable pageable);
+
+    /** A photo uploaded before content hashes were recorded. */
+    interface UnhashedRow {
+        UUID getId();
+        String getStoragePath();
+    }
+
+    @Query("select p.id as id, p.storagePath as storagePath from Photo p where p.contentHash is null order by p.id")
+    List<UnhashedRow> findUnhashed(Pageable pageable);
+
+    @Query("""
+           select p.id as id, p.storagePath as storagePath from Photo p
+           where p.contentHash is null and p.id > :id
+           order by p.id
+           """)
+    List<UnhashedRow> findUnhashedAfter(UUID id, Pageable pageable);
+
+    // only fills a missing hash, and touches no other column
+    @Transactional
+    @Modifying
+    @Query("update Photo p set p.contentHash = :hash where p.id = :id and p.contentHash is null")
+    int setContentHashIfMissing(UUID id, String hash);
 }
@@ -3,9 +3,15 @@ package au.edu.rmit.sept.webapp.repository;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
 import au.edu.rmit.sept.webapp.model.AppUser;
 import au.edu.rmit.sept.webapp.model.Event;
@@ -37,6 +43,30 @@ public interface RsvpRepository extends JpaRepository<Rsvp, UUID> {
     @EntityGraph(attributePaths = { "event" })
     List<Rsvp> findByUser_EmailIgnoreCase(String email);
 
+    @EntityGraph(attributePaths = { "event" })
+    List<Rsvp> findWithEventByUser_Id(UUID userId);
+
     // Admin query
     java.util.List<Rsvp> findByEventId(UUID eventId);
+
+    boolean existsByEvent_Id(UUID eventId);
+
+    /** One attendee export line; no entities are loaded. */
+    interface AttendeeRow {
+        String getName();
+        String getEmail();
+        RsvpStatus getStatus();
+    }
+
+    // Attendee export: must be consumed inside a transaction and the stream closed.
+    // On MySQL a fetch size of Integer.MIN_VALUE makes Connector/J stream rows as they
+    // arrive, without server-side cursors (useCursorFetch) on every pooled connection;
+    // other databases reject that value and page the cursor instead.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select u.name as name, u.email as email, r.status as status from Rsvp r join r.user u where r.event.id = :eventId")
+    Stream<AttendeeRow> streamAttendees(UUID eventId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select u.name as name, u.email as email, r.status as status from Rsvp r join r.user u where r.event.id = :eventId")
+    Stream<AttendeeRow> streamAttendeesInChunks(UUID eventId);
 }
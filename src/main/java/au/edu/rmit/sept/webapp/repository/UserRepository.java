@@ -1,13 +1,16 @@
 package au.edu.rmit.sept.webapp.repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import au.edu.rmit.sept.webapp.model.AppUser;
 
-public interface UserRepository extends JpaRepository<AppUser, UUID> {
+public interface UserRepository extends JpaRepository<AppUser, UUID>, JpaSpecificationExecutor<AppUser> {
     Optional<AppUser> findByEmail(String email);
     boolean existsByEmail(String email);
+    List<AppUser> findByBannedTrueOrActiveFalse();
 }
\ No newline at end of file
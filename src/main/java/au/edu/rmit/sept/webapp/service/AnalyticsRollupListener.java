@@ -0,0 +1,179 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.ActivityBucket;
+import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Rsvp;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate listener that keeps the rollup tables of {@link AnalyticsRollupService} in
+ * step with Event and Rsvp inserts and deletes, whichever code path made them, and
+ * counts new events, RSVPs and users into the hourly activity buckets. Changes
+ * are tallied while the session flushes (it can't run queries then) and written just
+ * before the transaction commits, inside it, so the rollups commit or roll back with
+ * the rows they count. Bulk JPQL deletes bypass entity events and must adjust the
+ * rollups themselves. Activity counts what was created per hour, so deletes leave it alone.
+ */
+final class AnalyticsRollupListener implements PostInsertEventListener, PostDeleteEventListener {
+
+    // adds to a bucket, creating it on first use; compaction reuses it with width DAY
+    static final String ADD_ACTIVITY = """
+            insert into activity_buckets (metric, bucket_start, width, total) values (:metric, :start, :width, :n)
+            on duplicate key update total = total + :n
+            """;
+
+    // an organizer's first event creates the row; one statement, so two first events
+    // committing at once can't fail either with a duplicate key
+    static final String ADD_ORGANIZER = """
+            insert into organizer_stats (organizer_email, events_created, total_rsvps) values (:email, :events, :rsvps)
+            on duplicate key update events_created = events_created + :events, total_rsvps = total_rsvps + :rsvps
+            """;
+
+    /** What one transaction changed. */
+    private static final class Delta {
+        final Map<UUID, String> created = new LinkedHashMap<>(); // event id -> organizer email
+        final Map<UUID, Long> rsvps = new LinkedHashMap<>();     // event id -> RSVPs added minus removed
+        final Set<UUID> deleted = new LinkedHashSet<>();
+        final Map<ActivityBucket.Key, Long> activity = new LinkedHashMap<>(); // (metric, hour) -> rows created
+
+        void created(String metric, LocalDateTime at) {
+            activity.merge(new ActivityBucket.Key(metric, hour(at)), 1L, Long::sum);
+        }
+    }
+
+    private final Map<SharedSessionContractImplementor, Delta> open = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Event e) {
+            delta(event.getSession()).created.put(e.getId(), e.getOrganizerEmail());
+            delta(event.getSession()).created("events", e.getCreatedAt());
+        } else if (event.getEntity() instanceof Rsvp r) {
+            delta(event.getSession()).rsvps.merge(r.getEvent().getId(), 1L, Long::sum);
+            delta(event.getSession()).created("rsvps", r.getCreatedAt());
+        } else if (event.getEntity() instanceof AppUser u) {
+            delta(event.getSession()).created("registrations", u.getCreatedAt());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Event e)
+            delta(event.getSession()).deleted.add(e.getId());
+        else if (event.getEntity() instanceof Rsvp r)
+            delta(event.getSession()).rsvps.merge(r.getEvent().getId(), -1L, Long::sum);
+    }
+
+    /** The UTC hour a row created at local time {@code at} is counted in. */
+    static Instant hour(LocalDateTime at) {
+        return (at == null ? LocalDateTime.now() : at).atZone(ZoneId.systemDefault()).toInstant()
+                .truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private Delta delta(EventSource session) {
+        return open.computeIfAbsent(session, s -> {
+            Delta d = new Delta();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) tx -> {
+                open.remove(session);
+                apply(tx, d);
+            });
+            // on rollback the before-commit step never runs
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (ok, tx) -> open.remove(session));
+            return d;
+        });
+    }
+
+    // new events first so RSVPs to them find their row, deleted events last
+    private static void apply(SessionImplementor s, Delta d) {
+        for (Map.Entry<UUID, String> c : d.created.entrySet()) {
+            s.createMutationQuery("insert into EventStats (eventId, organizerEmail, rsvpCount) values (:id, :org, 0)")
+                    .setParameter("id", c.getKey())
+                    .setParameter("org", c.getValue())
+                    .executeUpdate();
+            if (c.getValue() != null)
+                addToOrganizer(s, c.getValue(), 1, 0);
+        }
+        for (Map.Entry<UUID, Long> r : d.rsvps.entrySet()) {
+            if (r.getValue() == 0)
+                continue;
+            s.createMutationQuery("update EventStats s set s.rsvpCount = s.rsvpCount + :n where s.eventId = :id")
+                    .setParameter("n", r.getValue())
+                    .setParameter("id", r.getKey())
+                    .executeUpdate();
+            s.createMutationQuery("""
+                    update OrganizerStats o set o.totalRsvps = o.totalRsvps + :n
+                    where o.organizerEmail = (select s.organizerEmail from EventStats s where s.eventId = :id)
+                    """)
+                    .setParameter("n", r.getValue())
+                    .setParameter("id", r.getKey())
+                    .executeUpdate();
+        }
+        for (UUID id : d.deleted) {
+            Object[] row = s.createSelectionQuery(
+                    "select s.organizerEmail, s.rsvpCount from EventStats s where s.eventId = :id", Object[].class)
+                    .setParameter("id", id)
+                    .getSingleResultOrNull();
+            if (row == null)
+                continue;
+            if (row[0] != null)
+                addToOrganizer(s, (String) row[0], -1, -(Long) row[1]);
+            s.createMutationQuery("delete from EventStats s where s.eventId = :id")
+                    .setParameter("id", id)
+                    .executeUpdate();
+        }
+        for (Map.Entry<ActivityBucket.Key, Long> a : d.activity.entrySet()) {
+            s.createNativeMutationQuery(ADD_ACTIVITY)
+                    .setParameter("metric", a.getKey().getMetric())
+                    .setParameter("start", a.getKey().getBucketStart())
+                    .setParameter("width", "HOUR")
+                    .setParameter("n", a.getValue())
+                    .executeUpdate();
+        }
+    }
+
+    private static void addToOrganizer(SessionImplementor s, String email, long events, long rsvps) {
+        if (events > 0) {
+            s.createNativeMutationQuery(ADD_ORGANIZER)
+                    .setParameter("email", email)
+                    .setParameter("events", events)
+                    .setParameter("rsvps", rsvps)
+                    .executeUpdate();
+            return;
+        }
+        // removals only touch an existing row
+        s.createMutationQuery("""
+                update OrganizerStats o set o.eventsCreated = o.eventsCreated + :events, o.totalRsvps = o.totalRsvps + :rsvps
+                where o.organizerEmail = :email
+                """)
+                .setParameter("events", events)
+                .setParameter("rsvps", rsvps)
+                .setParameter("email", email)
+                .executeUpdate();
+    }
+}
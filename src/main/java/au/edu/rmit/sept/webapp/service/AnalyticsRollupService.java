@@ -0,0 +1,250 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.ActivityBucket;
+import au.edu.rmit.sept.webapp.repository.ActivityBucketRepository;
+import au.edu.rmit.sept.webapp.repository.EventRepository;
+import au.edu.rmit.sept.webapp.repository.EventStatsRepository;
+import au.edu.rmit.sept.webapp.repository.RsvpRepository;
+import au.edu.rmit.sept.webapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rollup tables behind the admin dashboard's top-K analytics: RSVPs per event
+ * ({@code event_stats}) and events and RSVPs per organizer ({@code organizer_stats}).
+ * {@link AnalyticsRollupListener} maintains them transactionally, so the dashboard
+ * reads a handful of index entries instead of counting RSVPs per event.
+ * <p>
+ * The same listener counts new RSVPs, registrations and events into hourly
+ * {@code activity_buckets}; {@link #compact} folds hours older than
+ * {@code hourlyRetentionDays} into one row per day, so a year of {@link #timeseries}
+ * reads a few hundred rows. Buckets are UTC, as are the days and weeks of a timeseries.
+ * <p>
+ * {@link #rebuild} recomputes everything from the source tables; it runs on startup while
+ * the rollups are still empty, and admins can run it to repair drift.
+ */
+@Service
+public class AnalyticsRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsRollupService.class);
+
+    public record Rebuilt(int events, int organizers, int buckets) {
+    }
+
+    public record Point(LocalDate start, long count) {
+    }
+
+    // metric -> entity whose createdAt it counts
+    private static final Map<String, String> METRICS = Map.of(
+            "rsvps", "Rsvp", "registrations", "AppUser", "events", "Event");
+
+    private static final long MAX_RANGE_DAYS = 5 * 366;
+
+    // written by every activity rebuild; no metric reads it, and compact() only folds hours
+    private static final ActivityBucket.Key BACKFILLED = new ActivityBucket.Key("_backfilled", Instant.EPOCH);
+
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+    private final EventRepository eventRepo;
+    private final EventStatsRepository eventStatsRepo;
+    private final ActivityBucketRepository bucketRepo;
+    private final RsvpRepository rsvpRepo;
+    private final UserRepository userRepo;
+    private final Clock clock;
+    private final Duration hourlyRetention;
+
+    public AnalyticsRollupService(EntityManagerFactory emf, EntityManager em, PlatformTransactionManager txManager,
+            EventRepository eventRepo, EventStatsRepository eventStatsRepo, ActivityBucketRepository bucketRepo,
+            RsvpRepository rsvpRepo, UserRepository userRepo, Clock clock,
+            @Value("${app.analytics.hourlyRetentionDays:7}") long hourlyRetentionDays) {
+        this.em = em;
+        this.tx = new TransactionTemplate(txManager);
+        this.eventRepo = eventRepo;
+        this.eventStatsRepo = eventStatsRepo;
+        this.bucketRepo = bucketRepo;
+        this.rsvpRepo = rsvpRepo;
+        this.userRepo = userRepo;
+        this.clock = clock;
+        this.hourlyRetention = Duration.ofDays(hourlyRetentionDays);
+
+        AnalyticsRollupListener listener = new AnalyticsRollupListener();
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    // first start with the rollup tables: fill them from existing data. Activity is built
+    // once, guarded by a marker row: the table can't be tested for emptiness because startup
+    // seeding may already have counted a row or two, and totals never match the source
+    // tables while older rows have no createdAt.
+    @EventListener(ApplicationReadyEvent.class)
+    void backfill() {
+        if (eventStatsRepo.count() == 0 && eventRepo.count() > 0) {
+            Rebuilt r = rebuild();
+            log.info("analytics rollups built: {} events, {} organizers, {} activity buckets",
+                    r.events(), r.organizers(), r.buckets());
+        } else if (!bucketRepo.existsById(BACKFILLED)
+                && (userRepo.count() > 0 || rsvpRepo.count() > 0 || eventRepo.count() > 0)) {
+            int buckets = tx.execute(status -> rebuildActivity());
+            log.info("activity buckets built: {}", buckets);
+        }
+    }
+
+    /**
+     * Recomputes all rollups in one transaction with set-based statements. On MySQL
+     * the source scan holds shared locks until commit, so RSVP writes wait for it.
+     */
+    public Rebuilt rebuild() {
+        return tx.execute(status -> {
+            em.createQuery("delete from OrganizerStats").executeUpdate();
+            em.createQuery("delete from EventStats").executeUpdate();
+            int events = em.createQuery("""
+                    insert into EventStats (eventId, organizerEmail, rsvpCount)
+                    select e.id, e.organizerEmail, count(r.id) from Event e left join e.rsvps r
+                    group by e.id, e.organizerEmail
+                    """).executeUpdate();
+            int organizers = em.createQuery("""
+                    insert into OrganizerStats (organizerEmail, eventsCreated, totalRsvps)
+                    select s.organizerEmail, count(s.eventId), sum(s.rsvpCount) from EventStats s
+                    where s.organizerEmail is not null
+                    group by s.organizerEmail
+                    """).executeUpdate();
+            return new Rebuilt(events, organizers, rebuildActivity());
+        });
+    }
+
+    // one grouped scan per source table; rows with no createdAt can't be placed and are skipped
+    private int rebuildActivity() {
+        em.createQuery("delete from ActivityBucket").executeUpdate();
+        Instant cutoff = compactionCutoff();
+        int buckets = 0;
+        for (Map.Entry<String, String> m : METRICS.entrySet()) {
+            List<Object[]> hours = em.createQuery("""
+                    select year(x.createdAt), month(x.createdAt), day(x.createdAt), hour(x.createdAt), count(x)
+                    from %s x where x.createdAt is not null
+                    group by year(x.createdAt), month(x.createdAt), day(x.createdAt), hour(x.createdAt)
+                    """.formatted(m.getValue()), Object[].class).getResultList();
+            Map<Instant, Long> totals = new HashMap<>();
+            for (Object[] h : hours) {
+                Instant hour = AnalyticsRollupListener.hour(LocalDateTime.of(((Number) h[0]).intValue(),
+                        ((Number) h[1]).intValue(), ((Number) h[2]).intValue(), ((Number) h[3]).intValue(), 0));
+                totals.merge(hour.isBefore(cutoff) ? hour.truncatedTo(ChronoUnit.DAYS) : hour,
+                        ((Number) h[4]).longValue(), Long::sum);
+            }
+            for (Map.Entry<Instant, Long> t : totals.entrySet())
+                em.persist(new ActivityBucket(m.getKey(), t.getKey(), t.getKey().isBefore(cutoff) ? "DAY" : "HOUR",
+                        t.getValue()));
+            buckets += totals.size();
+        }
+        em.persist(new ActivityBucket(BACKFILLED.getMetric(), BACKFILLED.getBucketStart(), "DAY", 0));
+        return buckets;
+    }
+
+    /**
+     * Folds hourly buckets from before the retention window into daily ones. The hours
+     * are locked while they are summed so a late insert into one waits rather than being
+     * deleted uncounted. Returns how many hourly buckets were folded.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.compactIntervalMs:3600000}")
+    public int compact() {
+        Instant cutoff = compactionCutoff();
+        return tx.execute(status -> {
+            List<ActivityBucket> hours = em.createQuery(
+                    "select b from ActivityBucket b where b.width = 'HOUR' and b.id.bucketStart < :cutoff",
+                    ActivityBucket.class)
+                    .setParameter("cutoff", cutoff)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            if (hours.isEmpty())
+                return 0;
+            Map<ActivityBucket.Key, Long> days = new HashMap<>();
+            for (ActivityBucket b : hours)
+                days.merge(new ActivityBucket.Key(b.getId().getMetric(), b.getId().getBucketStart().truncatedTo(ChronoUnit.DAYS)),
+                        b.getTotal(), Long::sum);
+            em.createQuery("delete from ActivityBucket b where b.width = 'HOUR' and b.id.bucketStart < :cutoff")
+                    .setParameter("cutoff", cutoff)
+                    .executeUpdate();
+            // a day compacted earlier may already have a row
+            for (Map.Entry<ActivityBucket.Key, Long> d : days.entrySet()) {
+                em.createNativeQuery(AnalyticsRollupListener.ADD_ACTIVITY)
+                        .setParameter("metric", d.getKey().getMetric())
+                        .setParameter("start", d.getKey().getBucketStart())
+                        .setParameter("width", "DAY")
+                        .setParameter("n", d.getValue())
+                        .executeUpdate();
+            }
+            return hours.size();
+        });
+    }
+
+    // midnight UTC, hourlyRetention ago: hours before it are closed and kept per day only
+    private Instant compactionCutoff() {
+        return clock.instant().truncatedTo(ChronoUnit.DAYS).minus(hourlyRetention);
+    }
+
+    /**
+     * Counts of {@code metric} per UTC day or week (starting Monday) from {@code from} to
+     * {@code to}, both inclusive, with empty buckets as zero. Defaults to the last 30 days
+     * or 12 weeks; {@code from} is moved back to its Monday for weekly buckets.
+     */
+    public List<Point> timeseries(String metric, String bucket, LocalDate from, LocalDate to) {
+        if (!METRICS.containsKey(metric))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "metric must be rsvps, registrations or events");
+        boolean weekly = switch (bucket) {
+            case "day" -> false;
+            case "week" -> true;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bucket must be day or week");
+        };
+        LocalDate end = to != null ? to : LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC);
+        LocalDate start = from != null ? from : weekly ? end.minusWeeks(11) : end.minusDays(29);
+        if (weekly)
+            start = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        if (days < 1)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        if (days > MAX_RANGE_DAYS)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "range is limited to " + MAX_RANGE_DAYS + " days");
+
+        int step = weekly ? 7 : 1;
+        long[] counts = new long[(int) ((days + step - 1) / step)];
+        for (ActivityBucket b : bucketRepo.findRange(metric, start.atStartOfDay(ZoneOffset.UTC).toInstant(),
+                end.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant())) {
+            long day = ChronoUnit.DAYS.between(start, LocalDate.ofInstant(b.getId().getBucketStart(), ZoneOffset.UTC));
+            counts[(int) (day / step)] += b.getTotal();
+        }
+        List<Point> points = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++)
+            points.add(new Point(start.plusDays((long) i * step), counts[i]));
+        return points;
+    }
+}
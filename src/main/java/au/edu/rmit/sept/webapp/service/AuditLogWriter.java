@@ -0,0 +1,201 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes audit entries off the request thread. Requests put entries on a bounded
+ * queue; one writer thread drains it and inserts whatever has accumulated, up to
+ * {@code batchSize} rows, as a single JDBC batch in one transaction.
+ * <p>
+ * With {@code app.audit.waitForWrite} the caller blocks until its entry's batch has
+ * committed; concurrent callers still share batches. A full queue is then bypassed
+ * with an inline insert, so no entry is lost. Without it, recording is
+ * fire-and-forget and entries that don't fit in the queue are dropped and counted.
+ * On shutdown the queue is drained before the database goes away.
+ */
+@Service
+public class AuditLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    /** Inserts one batch; throws if nothing was written. */
+    interface Sink {
+        void write(List<AuditLog> batch);
+    }
+
+    private record Pending(AuditLog entry, CompletableFuture<Void> written) {
+    }
+
+    private final Sink sink;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final boolean waitForWrite;
+    private final long waitTimeoutMillis;
+    private final Thread writer;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private volatile boolean running = true;
+
+    @Autowired
+    public AuditLogWriter(EntityManager em, PlatformTransactionManager txManager, MeterRegistry registry,
+            @Value("${app.audit.queueCapacity:10000}") int queueCapacity,
+            @Value("${app.audit.batchSize:200}") int batchSize,
+            @Value("${app.audit.waitForWrite:false}") boolean waitForWrite,
+            @Value("${app.audit.waitTimeoutMs:2000}") long waitTimeoutMillis) {
+        this(jpaSink(em, new TransactionTemplate(txManager), batchSize), registry, queueCapacity, batchSize,
+                waitForWrite, waitTimeoutMillis);
+    }
+
+    AuditLogWriter(Sink sink, MeterRegistry registry, int queueCapacity, int batchSize, boolean waitForWrite,
+            long waitTimeoutMillis) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.waitForWrite = waitForWrite;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.written = Counter.builder("audit.written").register(registry);
+        this.dropped = Counter.builder("audit.dropped").register(registry);
+        this.failed = Counter.builder("audit.failed").register(registry);
+        Gauge.builder("audit.queue.depth", queue, BlockingQueue::size).register(registry);
+        this.writer = new Thread(this::drain, "audit-writer");
+        this.writer.setDaemon(true); // close() drains it on an orderly shutdown
+        this.writer.start();
+    }
+
+    // persist + flush in one session with JDBC batching on; MySQL folds the batch into
+    // multi-row inserts with rewriteBatchedStatements=true
+    private static Sink jpaSink(EntityManager em, TransactionTemplate tx, int batchSize) {
+        return batch -> tx.executeWithoutResult(status -> {
+            em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            for (AuditLog entry : batch)
+                em.persist(entry);
+            em.flush();
+            em.clear();
+        });
+    }
+
+    /** Queues an entry; in waitForWrite mode returns once it has been committed. */
+    public void record(AuditLog entry) {
+        Pending p = new Pending(entry, waitForWrite ? new CompletableFuture<>() : null);
+        if (!running || !queue.offer(p)) {
+            if (waitForWrite) {
+                insertNow(entry);
+            } else {
+                dropped.increment();
+                log.warn("Audit queue full, dropped {} on {}", entry.getAction(), entry.getSubjectId());
+            }
+            return;
+        }
+        if (!waitForWrite)
+            return;
+        try {
+            p.written().get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Audit entry {} not written after {} ms; it stays queued", entry.getAction(), waitTimeoutMillis);
+        } catch (ExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "audit log write failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the entries of one bulk operation. In waitForWrite mode they are inserted
+     * here as a single batch; otherwise they are queued and the writer batches them.
+     */
+    public void recordAll(List<AuditLog> entries) {
+        if (entries.isEmpty())
+            return;
+        if (waitForWrite) {
+            insertNow(entries);
+            return;
+        }
+        for (AuditLog entry : entries)
+            record(entry);
+    }
+
+    private void insertNow(AuditLog entry) {
+        insertNow(List.of(entry));
+    }
+
+    private void insertNow(List<AuditLog> entries) {
+        try {
+            sink.write(entries);
+            written.increment(entries.size());
+        } catch (RuntimeException e) {
+            failed.increment(entries.size());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "audit log write failed", e);
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // only close() stops the loop, after the queue is empty
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<AuditLog> entries = new ArrayList<>(batch.size());
+        for (Pending p : batch)
+            entries.add(p.entry());
+        try {
+            sink.write(entries);
+            written.increment(batch.size());
+            for (Pending p : batch)
+                if (p.written() != null)
+                    p.written().complete(null);
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.error("Could not write {} audit entries", batch.size(), e);
+            for (Pending p : batch)
+                if (p.written() != null)
+                    p.written().completeExceptionally(e);
+        }
+    }
+
+    /** Stops taking entries and waits for the writer to empty the queue. */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty())
+            log.warn("Shut down with {} audit entries unwritten", queue.size());
+    }
+}
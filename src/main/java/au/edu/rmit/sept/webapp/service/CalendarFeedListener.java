@@ -0,0 +1,40 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Rsvp;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA listener on Event, Rsvp and AppUser that tells {@link CalendarFeedService} which cached
+ * feeds went stale, whichever code path did the write. Hibernate builds it through
+ * Spring; the service is looked up lazily because it needs the repositories, which
+ * need the entity manager factory that is creating this listener.
+ * Bulk JPQL updates and deletes bypass entity callbacks and must invalidate themselves.
+ */
+public class CalendarFeedListener {
+
+    private final ObjectProvider<CalendarFeedService> feeds;
+
+    public CalendarFeedListener(ObjectProvider<CalendarFeedService> feeds) {
+        this.feeds = feeds;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        CalendarFeedService service = feeds.getIfAvailable();
+        if (service == null)
+            return; // still starting up: nothing is cached yet
+        if (entity instanceof Event)
+            service.eventChanged();
+        else if (entity instanceof Rsvp r && r.getUser() != null)
+            service.rsvpChanged(r.getUser().getId());
+        else if (entity instanceof AppUser u)
+            service.userChanged(u.getId()); // banned, deactivated or a new feed token
+    }
+}
@@ -0,0 +1,272 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Rsvp;
+import au.edu.rmit.sept.webapp.model.RsvpStatus;
+import au.edu.rmit.sept.webapp.repository.EventRepository;
+import au.edu.rmit.sept.webapp.repository.RsvpRepository;
+import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.util.ICalendarWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Rendered iCalendar feeds, cached until the data behind them changes. Calendar apps
+ * poll every few minutes, so an unchanged feed is served from memory (and usually
+ * answered 304 from its ETag) without touching the database. {@link CalendarFeedListener}
+ * reports Event, Rsvp and AppUser writes: an event change drops every feed, an RSVP or
+ * user change only that user's. Invalidation runs after the writing transaction
+ * completes, and a render that raced with one is not cached.
+ * <p>
+ * Personal feed tokens are signed with their own key, over the user id and a per-user
+ * version that {@link #rotate} bumps, so a leaked link can be revoked. Tokens of banned
+ * or deactivated users stop verifying.
+ */
+@Service
+public class CalendarFeedService {
+
+    /** A rendered feed. {@code lastModified} only moves when the content does. */
+    public record Feed(byte[] body, String etag, Instant lastModified, long loadedAtMillis) {
+    }
+
+    private final EventRepository eventRepo;
+    private final RsvpRepository rsvpRepo;
+    private final UserRepository userRepo;
+    private final Clock clock;
+    private final ThreadLocal<Mac> mac;
+    private final Duration window;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    // bumped on every invalidation so a render that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<String, Feed> eventFeeds = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Feed> eldest) {
+            return size() > 256;
+        }
+    };
+
+    // keyed by subscription token ("<userId>.<signature>") so a cached poll needs no verification
+    private final Map<String, Feed> userFeeds = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Feed> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public CalendarFeedService(EventRepository eventRepo, RsvpRepository rsvpRepo, UserRepository userRepo,
+            Clock clock,
+            @Value("${app.calendar.secret:dev-calendar-secret-change-me}") String secret,
+            @Value("${app.calendar.pastDays:30}") long pastDays,
+            @Value("${app.calendar.ttlSeconds:3600}") long ttlSeconds,
+            @Value("${app.calendar.maxEntries:10000}") int maxEntries) {
+        this.eventRepo = eventRepo;
+        this.rsvpRepo = rsvpRepo;
+        this.userRepo = userRepo;
+        this.clock = clock;
+        this.window = Duration.ofDays(pastDays);
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.maxEntries = maxEntries;
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac m = Mac.getInstance("HmacSHA256");
+                m.init(key);
+                return m;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /** Approved events from {@code pastDays} ago onwards, optionally of one category. */
+    public Feed events(String category) {
+        String key = category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+        return cached(eventFeeds, key, () -> {
+            LocalDateTime from = LocalDateTime.ofInstant(clock.instant().minus(window), ZoneOffset.UTC);
+            List<Event> events = key.isEmpty()
+                    ? eventRepo.findByApprovalStatusAndStartTimeAfterOrderByStartTimeAsc("APPROVED", from)
+                    : eventRepo.findByApprovalStatusAndCategoryIgnoreCaseAndStartTimeAfterOrderByStartTimeAsc(
+                            "APPROVED", key, from);
+            ICalendarWriter ics = new ICalendarWriter(key.isEmpty() ? "RMIT Events" : "RMIT Events: " + category.trim(),
+                    clock.instant());
+            for (Event e : events)
+                ics.event(e.getId() + "@rmit-events", e.getStartTime(), e.getTitle(), e.getDescription(),
+                        e.getLocation(), e.getCategory(), "CONFIRMED");
+            return ics.finish();
+        });
+    }
+
+    /** The approved events a user has RSVP'd to; the token comes from {@link #token}. */
+    public Feed user(String token) {
+        synchronized (userFeeds) {
+            Feed f = userFeeds.get(token);
+            if (f != null && clock.millis() - f.loadedAtMillis() < ttlMillis)
+                return f;
+        }
+        UUID userId = verify(token);
+        return cached(userFeeds, token, () -> {
+            List<Rsvp> rsvps = rsvpRepo.findWithEventByUser_Id(userId).stream()
+                    .sorted(Comparator.comparing(r -> r.getEvent().getStartTime()))
+                    .toList();
+            ICalendarWriter ics = new ICalendarWriter("My RMIT Events", clock.instant());
+            for (Rsvp r : rsvps) {
+                Event e = r.getEvent();
+                if (!"APPROVED".equals(e.getApprovalStatus()))
+                    continue;
+                ics.event(e.getId() + "@rmit-events", e.getStartTime(), e.getTitle(), e.getDescription(),
+                        e.getLocation(), e.getCategory(), r.getStatus() == RsvpStatus.GOING ? "CONFIRMED" : "TENTATIVE");
+            }
+            return ics.finish();
+        });
+    }
+
+    /** Subscription token for a user's feed: stable until {@link #rotate}, so a calendar app can keep the URL. */
+    public String token(UUID userId) {
+        return token(userRepo.findById(userId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /** Revokes the user's current feed token and returns the new one. */
+    public String rotate(UUID userId) {
+        AppUser user = userRepo.findById(userId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        user.setCalendarTokenVersion(user.getCalendarTokenVersion() + 1);
+        return token(userRepo.save(user)); // the listener drops the feed cached under the old token
+    }
+
+    private String token(AppUser user) {
+        String signed = user.getId() + ":" + user.getCalendarTokenVersion();
+        byte[] sig = Arrays.copyOf(mac.get().doFinal(signed.getBytes(StandardCharsets.UTF_8)), 16);
+        return user.getId() + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sig);
+    }
+
+    // only on a cache miss: reads the user, so bans, deactivation and rotation take effect
+    private UUID verify(String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        try {
+            if (dot > 0) {
+                AppUser user = userRepo.findById(UUID.fromString(token.substring(0, dot))).orElse(null);
+                if (user != null && user.isActive() && !user.isBanned()
+                        && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                                token(user).getBytes(StandardCharsets.UTF_8)))
+                    return user.getId();
+            }
+        } catch (IllegalArgumentException e) {
+            // not a UUID: fall through
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND); // don't reveal which part was wrong
+    }
+
+    private <K> Feed cached(Map<K, Feed> feeds, K key, Supplier<byte[]> render) {
+        long now = clock.millis();
+        Feed previous;
+        synchronized (feeds) {
+            previous = feeds.get(key);
+            if (previous != null && now - previous.loadedAtMillis() < ttlMillis)
+                return previous;
+        }
+
+        long gen = generation.get();
+        byte[] body = render.get();
+        String etag = etag(body);
+        Instant lastModified = previous != null && previous.etag().equals(etag)
+                ? previous.lastModified()
+                : clock.instant().truncatedTo(ChronoUnit.SECONDS);
+        Feed feed = new Feed(body, etag, lastModified, now);
+        synchronized (feeds) {
+            if (generation.get() == gen)
+                feeds.put(key, feed);
+        }
+        return feed;
+    }
+
+    // ignores DTSTAMP, which changes on every render
+    private static String etag(byte[] body) {
+        String text = new String(body, StandardCharsets.UTF_8).replaceAll("DTSTAMP:\\S+", "");
+        try {
+            byte[] sha = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(sha, 0, 16) + "\"";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ========== invalidation (see CalendarFeedListener) ==========
+
+    void eventChanged() {
+        afterCompletion(() -> {
+            invalidate(eventFeeds, null);
+            invalidate(userFeeds, null); // user feeds show event details too
+        });
+    }
+
+    void rsvpChanged(UUID userId) {
+        userChanged(userId);
+    }
+
+    void userChanged(UUID userId) {
+        afterCompletion(() -> invalidateUser(userId));
+    }
+
+    private <K> void invalidate(Map<K, Feed> feeds, K key) {
+        synchronized (feeds) {
+            generation.incrementAndGet();
+            if (key == null)
+                feeds.clear();
+            else
+                feeds.remove(key);
+        }
+    }
+
+    // the token's version lives in the database, so match on the user id prefix instead
+    private void invalidateUser(UUID userId) {
+        String prefix = userId + ".";
+        synchronized (userFeeds) {
+            generation.incrementAndGet();
+            userFeeds.keySet().removeIf(token -> token.startsWith(prefix));
+        }
+    }
+
+    // a render between flush and commit would still read the old rows
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package au.edu.rmit.sept.webapp.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Set-based writes over many events at once, for bulk moderation, and the single-event
+ * delete behind EventApi and AdminApi: children are removed by event id instead of
+ * being loaded and deleted one row at a time. Ids go to the database {@value #CHUNK}
+ * at a time as {@code where id in (...)} statements, all in one transaction. These
+ * statements bypass entity callbacks, so the calendar feeds are invalidated once at
+ * the end and the rollup rows of deleted events are adjusted here rather than by
+ * {@link AnalyticsRollupListener}.
+ */
+@Service
+public class EventBulkService {
+
+    static final int CHUNK = 500;
+
+    private final EntityManager em;
+    private final PhotoBlobService blobs;
+    private final CalendarFeedService feeds;
+
+    public EventBulkService(EntityManager em, PhotoBlobService blobs, CalendarFeedService feeds) {
+        this.em = em;
+        this.blobs = blobs;
+        this.feeds = feeds;
+    }
+
+    /** Sets the approval status and rejection reason of those of {@code ids} that exist; returns their ids. */
+    @Transactional
+    public List<UUID> setApproval(Collection<UUID> ids, String status, String reason) {
+        List<UUID> found = new ArrayList<>();
+        for (List<UUID> chunk : chunks(ids)) {
+            found.addAll(existing(chunk));
+            em.createQuery("update Event e set e.approvalStatus = :status, e.rejectionReason = :reason where e.id in :ids")
+                    .setParameter("status", status)
+                    .setParameter("reason", reason)
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        if (!found.isEmpty())
+            feeds.eventChanged();
+        return found;
+    }
+
+    /**
+     * Deletes those of {@code ids} that exist with their photos, feedback and RSVPs;
+     * returns their ids. Photo files are queued for the reaper and only removed once
+     * this transaction has committed.
+     */
+    @Transactional
+    public List<UUID> delete(Collection<UUID> ids) {
+        List<UUID> found = new ArrayList<>();
+        for (List<UUID> chunk : chunks(ids)) {
+            List<UUID> existing = existing(chunk);
+            if (existing.isEmpty())
+                continue;
+            found.addAll(existing);
+
+            blobs.releaseEvents(existing);
+            for (String child : List.of("Photo", "Feedback", "Rsvp"))
+                em.createQuery("delete from " + child + " c where c.event.id in :ids")
+                        .setParameter("ids", existing)
+                        .executeUpdate();
+
+            // take the events and their RSVPs off their organizers before dropping the event rows
+            em.createQuery("""
+                    update OrganizerStats o
+                    set o.eventsCreated = o.eventsCreated - (select count(s.eventId) from EventStats s
+                            where s.organizerEmail = o.organizerEmail and s.eventId in :ids),
+                        o.totalRsvps = o.totalRsvps - (select coalesce(sum(s.rsvpCount), 0) from EventStats s
+                            where s.organizerEmail = o.organizerEmail and s.eventId in :ids)
+                    where o.organizerEmail in (select s.organizerEmail from EventStats s where s.eventId in :ids)
+                    """)
+                    .setParameter("ids", existing)
+                    .executeUpdate();
+            em.createQuery("delete from EventStats s where s.eventId in :ids")
+                    .setParameter("ids", existing)
+                    .executeUpdate();
+            em.createQuery("delete from Event e where e.id in :ids")
+                    .setParameter("ids", existing)
+                    .executeUpdate();
+        }
+        if (!found.isEmpty())
+            feeds.eventChanged();
+        return found;
+    }
+
+    /** Deletes one event as {@link #delete(Collection)} does; false if it didn't exist. */
+    @Transactional
+    public boolean delete(UUID id) {
+        return !delete(List.of(id)).isEmpty();
+    }
+
+    private List<UUID> existing(List<UUID> ids) {
+        return em.createQuery("select e.id from Event e where e.id in :ids", UUID.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    private static List<List<UUID>> chunks(Collection<UUID> ids) {
+        List<UUID> all = new ArrayList<>(ids);
+        List<List<UUID>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += CHUNK)
+            chunks.add(all.subList(i, Math.min(all.size(), i + CHUNK)));
+        return chunks;
+    }
+}
@@ -0,0 +1,389 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.ExportJob;
+import au.edu.rmit.sept.webapp.repository.ExportJobRepository;
+import au.edu.rmit.sept.webapp.util.Csv;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full table dumps for admins, written to gzipped CSV or NDJSON files off the request
+ * path. Each dataset is read as a keyset scan over its primary key, one chunk per
+ * short read-only transaction, so a job holds a pooled connection only while a chunk
+ * is fetched and never more than one chunk of rows in memory. Between chunks it
+ * pauses, and backs off further while request threads are waiting for a connection.
+ * Jobs run on a small bounded pool; when its queue is full callers get a 503.
+ * <p>
+ * The jobs table is shared by every instance, so each one keeps a heartbeat on the
+ * jobs it holds; unfinished jobs whose heartbeat goes stale belonged to an instance
+ * that died and are marked failed by whichever instance notices first. Finished files
+ * go to the photo storage under {@code exports/}, so whichever instance a poll or
+ * download lands on can serve them, and any instance can purge them.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+
+    /** 503 raised when the export queue is full. */
+    public static class BusyException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        public BusyException(long retryAfterSeconds) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "too many exports running, please retry later");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+
+    /** What to select for a dataset; the first column must be the entity id. */
+    private record Spec(String entity, List<String> columns, List<String> paths) {
+    }
+
+    private static final Map<ExportJob.Dataset, Spec> SPECS = Map.of(
+            ExportJob.Dataset.EVENTS, new Spec("Event",
+                    List.of("id", "title", "description", "startTime", "location", "category", "organizerEmail",
+                            "approvalStatus", "rejectionReason"),
+                    List.of("id", "title", "description", "startTime", "location", "category", "organizerEmail",
+                            "approvalStatus", "rejectionReason")),
+            ExportJob.Dataset.RSVPS, new Spec("Rsvp",
+                    List.of("id", "userId", "eventId", "status", "createdAt", "updatedAt"),
+                    List.of("id", "user.id", "event.id", "status", "createdAt", "updatedAt")),
+            ExportJob.Dataset.FEEDBACK, new Spec("Feedback",
+                    List.of("id", "userId", "eventId", "rating", "comment", "createdAt", "updatedAt"),
+                    List.of("id", "user.id", "event.id", "rating", "comment", "createdAt", "updatedAt")),
+            ExportJob.Dataset.AUDIT_LOG, new Spec("AuditLog",
+                    List.of("id", "ts", "actorUserId", "action", "subjectId", "meta"),
+                    List.of("id", "ts", "actorUserId", "action", "subjectId", "meta")));
+
+    private static final String KEY_PREFIX = "exports/";
+
+    private static final EnumSet<ExportJob.Status> UNFINISHED = EnumSet.of(ExportJob.Status.QUEUED, ExportJob.Status.RUNNING);
+
+    private final ExportJobRepository jobRepo;
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final PhotoStorage storage;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final long busyPauseMillis;
+    private final Duration retention;
+    private final long retryAfterSeconds;
+    private final Duration staleAfter;
+    private final ThreadPoolExecutor executor;
+    // queued or running here, i.e. the jobs this instance heartbeats
+    private final Set<UUID> live = ConcurrentHashMap.newKeySet();
+    private final Counter rows;
+    private final Counter failures;
+
+    public ExportJobService(ExportJobRepository jobRepo, EntityManager em, PlatformTransactionManager txManager,
+            DataSource dataSource, ObjectMapper objectMapper, Clock clock, MeterRegistry registry,
+            PhotoStorage storage,
+            @Value("${app.exports.threads:1}") int threads,
+            @Value("${app.exports.queueCapacity:4}") int queueCapacity,
+            @Value("${app.exports.chunkSize:1000}") int chunkSize,
+            @Value("${app.exports.pauseMs:20}") long pauseMillis,
+            @Value("${app.exports.busyPauseMs:250}") long busyPauseMillis,
+            @Value("${app.exports.retentionHours:24}") long retentionHours,
+            @Value("${app.exports.retryAfterSeconds:30}") long retryAfterSeconds,
+            @Value("${app.exports.staleAfterMs:300000}") long staleAfterMillis) {
+        this.jobRepo = jobRepo;
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.storage = storage;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+        this.busyPauseMillis = Math.max(1, busyPauseMillis);
+        this.retention = Duration.ofHours(retentionHours);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.staleAfter = Duration.ofMillis(staleAfterMillis);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "export-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rows = Counter.builder("exports.rows").register(registry);
+        this.failures = Counter.builder("exports.failures").register(registry);
+        Gauge.builder("exports.queue.depth", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("exports.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    @PostConstruct
+    void failInterrupted() {
+        failStale();
+    }
+
+    /** Refreshes this instance's jobs, then fails the ones no instance is refreshing. */
+    @Scheduled(fixedDelayString = "${app.exports.heartbeatIntervalMs:30000}")
+    public void heartbeat() {
+        if (!live.isEmpty())
+            jobRepo.touch(Set.copyOf(live), clock.instant());
+        failStale();
+    }
+
+    private void failStale() {
+        Instant now = clock.instant();
+        int n = jobRepo.failStale(UNFINISHED, now.minus(staleAfter), ExportJob.Status.FAILED,
+                "abandoned: the instance running it stopped", now);
+        if (n > 0)
+            log.warn("Marked {} abandoned export jobs as failed", n);
+    }
+
+    /** Queues a dump; the returned job is QUEUED and can be polled by id. */
+    public ExportJob start(ExportJob.Dataset dataset, ExportJob.Format format, UUID requestedBy) {
+        ExportJob job = new ExportJob();
+        job.setDataset(dataset);
+        job.setFormat(format);
+        job.setRequestedBy(requestedBy);
+        job.setCreatedAt(clock.instant());
+        job.setHeartbeatAt(job.getCreatedAt());
+        ExportJob saved = jobRepo.save(job);
+        live.add(saved.getId());
+        try {
+            executor.execute(() -> run(saved.getId()));
+        } catch (RejectedExecutionException e) {
+            live.remove(saved.getId());
+            jobRepo.delete(saved);
+            throw new BusyException(retryAfterSeconds);
+        }
+        return saved;
+    }
+
+    /** Storage key of a job's file, e.g. {@code exports/<id>.csv.gz}. */
+    public static String key(ExportJob job) {
+        String ext = job.getFormat() == ExportJob.Format.CSV ? ".csv.gz" : ".ndjson.gz";
+        return KEY_PREFIX + job.getId() + ext;
+    }
+
+    /** The finished file of a job, or null once it has been purged. */
+    public Resource file(ExportJob job) throws IOException {
+        String key = key(job);
+        Optional<Path> local = storage.localFile(key);
+        if (local.isPresent())
+            return Files.isRegularFile(local.get()) ? new FileSystemResource(local.get()) : null;
+        long size = storage.size(key);
+        if (size < 0)
+            return null;
+        return new InputStreamResource(storage.open(key)) {
+            @Override
+            public long contentLength() {
+                return size;
+            }
+        };
+    }
+
+    /** Download name, e.g. {@code audit_log-20240101T120000Z.ndjson.gz}. */
+    public static String fileName(ExportJob job) {
+        String stamp = job.getCreatedAt().toString().replaceAll("[-:]|\\.\\d+", "");
+        String ext = job.getFormat() == ExportJob.Format.CSV ? ".csv.gz" : ".ndjson.gz";
+        return job.getDataset().name().toLowerCase(Locale.ROOT) + "-" + stamp + ext;
+    }
+
+    private void run(UUID jobId) {
+        try {
+            ExportJob job = jobRepo.findById(jobId).orElse(null);
+            if (job != null)
+                run(job);
+        } catch (OptimisticLockingFailureException e) {
+            // another instance took it for abandoned and failed it; that verdict stands, and the
+            // file, if one was stored, goes when the failed job is purged
+            log.warn("Export job {} was failed by another instance while running here", jobId);
+        } finally {
+            live.remove(jobId);
+        }
+    }
+
+    private void run(ExportJob job) {
+        job.setStatus(ExportJob.Status.RUNNING);
+        job.setStartedAt(clock.instant());
+        job.setHeartbeatAt(job.getStartedAt());
+        job = jobRepo.save(job);
+
+        Path staged = null;
+        try {
+            staged = storage.createStagingFile();
+            long count;
+            try (Writer w = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(staged), 64 * 1024), StandardCharsets.UTF_8), 64 * 1024)) {
+                count = write(job, w);
+            }
+            job.setRowCount(count);
+            job.setSizeBytes(Files.size(staged));
+            storage.put(key(job), staged, "application/gzip");
+            job.setStatus(ExportJob.Status.DONE);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            log.error("Export job {} ({}) failed", job.getId(), job.getDataset(), e);
+            failures.increment();
+            job.setStatus(ExportJob.Status.FAILED);
+            String message = String.valueOf(e.getMessage());
+            job.setError(message.length() > 500 ? message.substring(0, 500) : message);
+        } finally {
+            try {
+                if (staged != null)
+                    Files.deleteIfExists(staged);
+            } catch (IOException ignored) {
+                // staging leftovers are picked up by the photo reaper's reconciliation
+            }
+        }
+        job.setFinishedAt(clock.instant());
+        jobRepo.save(job);
+    }
+
+    private long write(ExportJob job, Writer w) throws IOException, InterruptedException {
+        Spec spec = SPECS.get(job.getDataset());
+        boolean csv = job.getFormat() == ExportJob.Format.CSV;
+        if (csv) {
+            w.write(String.join(",", spec.columns()));
+            w.write('\n');
+        }
+        long count = 0;
+        UUID after = null;
+        while (true) {
+            UUID from = after;
+            List<Object[]> chunk = readOnlyTx.execute(tx -> fetch(spec, from));
+            for (Object[] row : chunk) {
+                if (csv)
+                    writeCsv(w, row);
+                else
+                    writeJson(w, spec, row);
+            }
+            count += chunk.size();
+            rows.increment(chunk.size());
+            if (chunk.size() < chunkSize)
+                return count;
+            after = (UUID) chunk.get(chunk.size() - 1)[0];
+            pause();
+        }
+    }
+
+    // keyset scan: WHERE id > :after ORDER BY id, so every chunk is a primary key range read
+    private List<Object[]> fetch(Spec spec, UUID after) {
+        StringBuilder jpql = new StringBuilder("select ");
+        for (int i = 0; i < spec.paths().size(); i++)
+            jpql.append(i == 0 ? "" : ", ").append("x.").append(spec.paths().get(i));
+        jpql.append(" from ").append(spec.entity()).append(" x");
+        if (after != null)
+            jpql.append(" where x.id > :after");
+        jpql.append(" order by x.id");
+        TypedQuery<Object[]> q = em.createQuery(jpql.toString(), Object[].class).setMaxResults(chunkSize);
+        if (after != null)
+            q.setParameter("after", after);
+        return q.getResultList();
+    }
+
+    private void writeCsv(Writer w, Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0)
+                w.write(',');
+            Object v = row[i];
+            // structured columns (audit meta) as their JSON
+            w.write(Csv.field(v == null ? null : v instanceof Map<?, ?> ? objectMapper.writeValueAsString(v) : v.toString()));
+        }
+        w.write('\n');
+    }
+
+    private void writeJson(Writer w, Spec spec, Object[] row) throws IOException {
+        Map<String, Object> obj = new LinkedHashMap<>();
+        for (int i = 0; i < row.length; i++)
+            obj.put(spec.columns().get(i), row[i]);
+        w.write(objectMapper.writeValueAsString(obj));
+        w.write('\n');
+    }
+
+    // yields between chunks; waits longer while requests are queueing for a connection
+    private void pause() throws InterruptedException {
+        if (pauseMillis > 0)
+            Thread.sleep(pauseMillis);
+        HikariPoolMXBean pool = dataSource instanceof HikariDataSource h ? h.getHikariPoolMXBean() : null;
+        for (int i = 0; pool != null && i < 20 && pool.getThreadsAwaitingConnection() > 0; i++)
+            Thread.sleep(busyPauseMillis);
+    }
+
+    /** Deletes finished jobs, and their files, once they are older than the retention. */
+    @Scheduled(fixedDelayString = "${app.exports.cleanupIntervalMs:3600000}")
+    public void purgeExpired() {
+        for (ExportJob job : jobRepo.findByFinishedAtBefore(clock.instant().minus(retention))) {
+            try {
+                storage.delete(key(job));
+                jobRepo.delete(job);
+            } catch (IOException e) {
+                log.warn("Could not delete export file {}: {}", key(job), e.toString());
+            } catch (OptimisticLockingFailureException e) {
+                // purged by another instance in the meantime
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,108 @@
+package au.edu.rmit.sept.webapp.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Filesystem driver rooted at {@code app.uploadDir}. Staging files live in the same
+ * tree, so {@link #put} is an atomic rename. Absolute paths recorded by older
+ * versions still resolve as long as they point inside the root.
+ */
+public class LocalPhotoStorage implements PhotoStorage {
+
+    private final Path root;
+    private final Path staging;
+
+    public LocalPhotoStorage(String rootDir) {
+        this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.staging = root.resolve(".staging");
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        Files.createDirectories(staging);
+        return Files.createTempFile(staging, "upload-", ".tmp");
+    }
+
+    @Override
+    public void put(String key, Path staged, String contentType) throws IOException {
+        Path dest = resolve(key);
+        Files.createDirectories(dest.getParent());
+        Files.move(staged, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        try {
+            return Files.size(resolve(key));
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    @Override
+    public void list(Consumer<StoredObject> visitor) throws IOException {
+        if (!Files.isDirectory(root))
+            return;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue; // deleted while walking
+                }
+                if (attrs.isRegularFile())
+                    visitor.accept(new StoredObject(keyOf(p), attrs.size(), attrs.lastModifiedTime().toInstant()));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // old rows hold absolute paths; inside the root they are the same file as the relative key
+    @Override
+    public String normalizeKey(String storagePath) {
+        Path p = Paths.get(storagePath);
+        if (!p.isAbsolute())
+            return storagePath.replace('\\', '/');
+        p = p.normalize();
+        return p.startsWith(root) ? keyOf(p) : storagePath;
+    }
+
+    private String keyOf(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private Path resolve(String key) {
+        Path p = root.resolve(key).normalize();
+        if (!p.startsWith(root))
+            throw new IllegalArgumentException("storage key escapes the upload dir: " + key);
+        return p;
+    }
+}
@@ -0,0 +1,135 @@
+package au.edu.rmit.sept.webapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a dedicated pool sized to the CPU count so a login burst cannot
+ * pin every Tomcat worker. The queue is bounded; when it is full callers get a
+ * fast 503 with Retry-After instead of piling up.
+ */
+@Service
+public class PasswordHashingService {
+
+    /** 503 raised when the hashing pool is saturated. */
+    public static class BusyException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        public BusyException(long retryAfterSeconds) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "authentication is busy, please retry");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final int cost;
+    private final long retryAfterSeconds;
+    private final long waitTimeoutMillis;
+
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(MeterRegistry registry,
+            @Value("${app.auth.hashThreads:0}") int threads,
+            @Value("${app.auth.hashQueueCapacity:64}") int queueCapacity,
+            @Value("${app.auth.bcryptCost:10}") int cost,
+            @Value("${app.auth.hashRetryAfterSeconds:1}") long retryAfterSeconds,
+            @Value("${app.auth.hashTimeoutMillis:10000}") long waitTimeoutMillis) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.cost = cost;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+
+        this.hashTimer = Timer.builder("auth.password.latency").tag("op", "hash").register(registry);
+        this.verifyTimer = Timer.builder("auth.password.latency").tag("op", "verify").register(registry);
+        this.rejected = Counter.builder("auth.password.rejected").register(registry);
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    public String hash(String rawPassword) {
+        return run(hashTimer, () -> BCrypt.hashpw(rawPassword, BCrypt.gensalt(cost)));
+    }
+
+    public boolean verify(String rawPassword, String passwordHash) {
+        return run(verifyTimer, () -> BCrypt.checkpw(rawPassword, passwordHash));
+    }
+
+    /** True when the stored hash was produced with a different cost than the configured one. */
+    public boolean needsRehash(String passwordHash) {
+        // $2a$10$<salt+hash>
+        if (passwordHash == null || passwordHash.length() < 7 || passwordHash.charAt(0) != '$')
+            return false;
+        try {
+            return Integer.parseInt(passwordHash.substring(4, 6)) != cost;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private <T> T run(Timer timer, Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(work));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException(retryAfterSeconds);
+        }
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new BusyException(retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new BusyException(retryAfterSeconds);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            throw new IllegalStateException("password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,212 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.Photo;
+import au.edu.rmit.sept.webapp.model.PhotoBlob;
+import au.edu.rmit.sept.webapp.model.PhotoDeletion;
+import au.edu.rmit.sept.webapp.repository.PhotoBlobRepository;
+import au.edu.rmit.sept.webapp.repository.PhotoDeletionRepository;
+import au.edu.rmit.sept.webapp.repository.PhotoRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Content-addressed photo storage: each distinct upload is stored once under the
+ * storage key {@code ab/cd/<sha256>.<ext>} and shared by every Photo row with
+ * the same bytes. Rows count their references; when the last referencing photo is
+ * deleted the file (and its derivatives) is queued for {@link PhotoReaperService}.
+ * <p>
+ * Several instances share one store, so the database is the only guard that holds
+ * across them: a blob row is inserted before its file is written, and the reaper
+ * checks for references under a row lock before deleting. The JVM-local stripes only
+ * keep one instance from racing itself.
+ */
+@Service
+public class PhotoBlobService {
+
+    /** Result of storing an upload; {@code created} is false when the bytes were already stored. */
+    public record StoredBlob(String hash, String key, long sizeBytes, boolean created) {
+    }
+
+    private final PhotoBlobRepository blobRepo;
+    private final PhotoRepository photoRepo;
+    private final PhotoDeletionRepository deletionRepo;
+    private final PhotoStorage storage;
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+    // file moves/deletes for one hash are serialized; DB counts are atomic on their own
+    private final Object[] stripes = new Object[64];
+
+    public PhotoBlobService(PhotoBlobRepository blobRepo, PhotoRepository photoRepo,
+            PhotoDeletionRepository deletionRepo, PhotoStorage storage, EntityManager em,
+            PlatformTransactionManager txManager) {
+        this.blobRepo = blobRepo;
+        this.photoRepo = photoRepo;
+        this.deletionRepo = deletionRepo;
+        this.storage = storage;
+        this.em = em;
+        this.tx = new TransactionTemplate(txManager);
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Object();
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Staging file for an upload; for local storage it sits on the same filesystem, so commit is a rename. */
+    public Path newTempFile() throws IOException {
+        return storage.createStagingFile();
+    }
+
+    /**
+     * Stores a fully written and hashed staging file (or adds a reference to the
+     * existing blob with the same hash). The staging file is always consumed.
+     */
+    public StoredBlob commit(Path tmp, String hash, long size, String contentType) throws IOException {
+        try {
+            synchronized (stripe(hash)) {
+                for (int attempt = 0; attempt < 5; attempt++) {
+                    if (blobRepo.incrementRefCount(hash) > 0) {
+                        PhotoBlob existing = blobRepo.findById(hash).orElseThrow();
+                        String key = existing.getStoragePath();
+                        // lost from storage, or its first uploader is still writing it: heal it with this copy
+                        if (storage.size(key) < 0)
+                            storage.put(key, tmp, contentType);
+                        return new StoredBlob(hash, key, size, false);
+                    }
+
+                    // the row goes in first, so from here on no reaper deletes the key
+                    String key = keyFor(hash, contentType);
+                    try {
+                        blobRepo.insertWithOneReference(hash, key, contentType, size, Instant.now());
+                    } catch (DataIntegrityViolationException e) {
+                        continue; // another instance stored the same bytes first: reference theirs
+                    }
+                    try {
+                        storage.put(key, tmp, contentType);
+                    } catch (IOException | RuntimeException e) {
+                        blobRepo.decrementRefCount(hash);
+                        blobRepo.deleteIfUnreferenced(hash);
+                        throw e;
+                    }
+                    return new StoredBlob(hash, key, size, true);
+                }
+                throw new IllegalStateException("blob " + hash + " kept changing while being stored");
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Drops the photo's reference to its file. Runs inside the caller's transaction
+     * if there is one, so the deletion is queued if and only if the delete commits.
+     */
+    public void release(Photo p) {
+        String hash = p.getContentHash();
+        Optional<PhotoBlob> blob = hash == null ? Optional.empty() : blobRepo.findById(hash);
+        if (blob.isEmpty() || !blob.get().getStoragePath().equals(p.getStoragePath())) {
+            // uploaded before blobs existed: the photo owns its file outright
+            deletionRepo.save(new PhotoDeletion(p.getStoragePath()));
+            return;
+        }
+
+        blobRepo.decrementRefCount(hash);
+        if (blobRepo.deleteIfUnreferenced(hash) > 0)
+            deletionRepo.save(new PhotoDeletion(blob.get().getStoragePath()));
+    }
+
+    /**
+     * {@link #release(Photo)} for every photo of {@code eventIds}: one grouped refCount
+     * update, and the freed keys queued in one JDBC batch (a multi-row insert on MySQL
+     * with rewriteBatchedStatements). The deletion ids are generated in Java, which
+     * Hibernate can't do for an insert ... select. Must run in the transaction that then
+     * deletes the photo rows.
+     */
+    public void releaseEvents(Collection<UUID> eventIds) {
+        List<String> freed = new ArrayList<>(blobRepo.findUnsharedPathsOfEvents(eventIds));
+        blobRepo.decrementRefCountsForEvents(eventIds);
+        freed.addAll(blobRepo.findUnreferencedPathsOfEvents(eventIds));
+        blobRepo.deleteUnreferencedForEvents(eventIds);
+        if (freed.isEmpty())
+            return;
+
+        Session session = em.unwrap(Session.class);
+        Integer batchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(freed.size());
+        for (String key : freed)
+            em.persist(new PhotoDeletion(key));
+        em.flush();
+        session.setJdbcBatchSize(batchSize);
+    }
+
+    /**
+     * Deletes a queued key and its derivatives unless something references it again
+     * (a re-upload of the same bytes, or a delete that rolled back after all).
+     * Returns the bytes freed, or -1 if the key is still in use.
+     */
+    public long reap(String key) throws IOException {
+        synchronized (stripe(hashOf(key))) {
+            try {
+                // the lock is held until the files are gone, so an upload of the same
+                // bytes on another instance waits and then writes them again
+                return tx.execute(status -> {
+                    if (!blobRepo.lockByStoragePath(key).isEmpty() || photoRepo.existsByStoragePath(key))
+                        return -1L;
+                    try {
+                        long freed = Math.max(0, storage.size(key));
+                        storage.delete(key);
+                        for (String derivative : PhotoDerivativeService.derivativeKeys(key)) {
+                            freed += Math.max(0, storage.size(derivative));
+                            storage.delete(derivative);
+                        }
+                        return freed;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // two levels of 256-way sharding keep directories (and S3 prefixes) small
+    private static String keyFor(String hash, String contentType) {
+        String ext = MediaType.IMAGE_PNG_VALUE.equalsIgnoreCase(contentType) ? ".png" : ".jpg";
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ext;
+    }
+
+    // ab/cd/<hash>.png (or a variant of it) -> <hash>, the same stripe commit() locks
+    private static String hashOf(String key) {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    private Object stripe(String hash) {
+        return stripes[Math.floorMod(hash.hashCode(), stripes.length)];
+    }
+}
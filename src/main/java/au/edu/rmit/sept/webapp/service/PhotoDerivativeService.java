@@ -0,0 +1,361 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.PhotoRendition;
+import au.edu.rmit.sept.webapp.model.PhotoSize;
+import au.edu.rmit.sept.webapp.util.ExifOrientation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates thumb/medium/full derivatives of uploaded photos on a bounded pool.
+ * Every size is re-encoded as a progressive JPEG at {@code app.photos.jpegQuality}
+ * plus a Save-Data JPEG at {@code app.photos.saveDataQuality}; PNG uploads also get
+ * a lossless PNG, and only that one if they use transparency. Pixels are decoded
+ * and written back without metadata, so EXIF (GPS, camera serials, thumbnails) is
+ * dropped; the EXIF orientation is applied to the pixels first.
+ * Renditions are stored next to the original ({@code <key>.thumb.jpg}) and only
+ * appear once fully written, so "object exists" means "rendition ready". Originals
+ * that can't be decoded (truncated or corrupt files that passed the magic-byte
+ * check) are remembered so they are not decoded again on every request.
+ */
+@Service
+public class PhotoDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoDerivativeService.class);
+
+    private final PhotoStorage storage;
+    private final ThreadPoolExecutor executor;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    // storage keys of undecodable originals; bounded, so a retry happens once it is evicted
+    private final Set<String> undecodable = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<String, Boolean>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > 10_000;
+                }
+            }));
+    private final Timer generateTimer;
+    private final Counter failures;
+    private final byte[] placeholder;
+    private final float jpegQuality;
+    private final float saveDataQuality;
+
+    public PhotoDerivativeService(PhotoStorage storage, MeterRegistry registry,
+            @Value("${app.photos.derivativeThreads:2}") int threads,
+            @Value("${app.photos.derivativeQueueCapacity:200}") int queueCapacity,
+            @Value("${app.photos.jpegQuality:0.82}") float jpegQuality,
+            @Value("${app.photos.saveDataQuality:0.55}") float saveDataQuality) {
+        this.storage = storage;
+        this.jpegQuality = jpegQuality;
+        this.saveDataQuality = saveDataQuality;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "photo-derivatives-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.generateTimer = Timer.builder("photos.derivatives.latency").register(registry);
+        this.failures = Counter.builder("photos.derivatives.failures").register(registry);
+        Gauge.builder("photos.derivatives.queue.depth", executor, e -> e.getQueue().size()).register(registry);
+        this.placeholder = renderPlaceholder();
+    }
+
+    /** Storage key of a rendition next to the original, e.g. {@code ab/abc.png -> ab/abc.thumb.lite.jpg}. */
+    public static String variantKey(String key, PhotoSize size, PhotoRendition rendition) {
+        int slash = key.lastIndexOf('/');
+        int dot = key.lastIndexOf('.');
+        String base = dot <= slash ? key : key.substring(0, dot);
+        return base + "." + size.key() + "." + rendition.suffix();
+    }
+
+    /** Every key a photo's derivatives may occupy, whether or not they were generated. */
+    public static List<String> derivativeKeys(String key) {
+        List<String> keys = new ArrayList<>();
+        for (PhotoSize size : PhotoSize.values())
+            for (PhotoRendition rendition : PhotoRendition.values())
+                keys.add(variantKey(key, size, rendition));
+        return keys;
+    }
+
+    public boolean isPending(UUID photoId) {
+        return inFlight.contains(photoId);
+    }
+
+    /** True once generation gave up on this original because it could not be decoded. */
+    public boolean isUndecodable(String key) {
+        return undecodable.contains(key);
+    }
+
+    /**
+     * Queues derivative generation. Returns false when the pool is saturated; the
+     * raw endpoint re-queues on the next request for a missing variant.
+     */
+    public boolean submit(UUID photoId, String key, String contentType) {
+        if (!inFlight.add(photoId))
+            return true;
+        try {
+            executor.execute(() -> {
+                try {
+                    generateTimer.record(() -> generate(key, contentType));
+                } finally {
+                    inFlight.remove(photoId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(photoId);
+            log.warn("Derivative queue full, deferring photo {}", photoId);
+            return false;
+        }
+    }
+
+    /** Small neutral PNG served while a variant is still being generated. */
+    public byte[] placeholder() {
+        return placeholder;
+    }
+
+    /**
+     * Writes every rendition of every size for one original. Normally runs on the
+     * pool via {@link #submit}; returns false (and counts a failure) if it could not.
+     */
+    public boolean generate(String key, String contentType) {
+        boolean png = MediaType.IMAGE_PNG_VALUE.equalsIgnoreCase(contentType);
+        boolean decoding = false; // storage errors may be transient, decode errors are not
+        try {
+            BufferedImage src;
+            int orientation = 1;
+            try (BufferedInputStream in = new BufferedInputStream(storage.open(key), ExifOrientation.HEAD_BYTES)) {
+                decoding = true;
+                if (!png) {
+                    in.mark(ExifOrientation.HEAD_BYTES);
+                    byte[] head = in.readNBytes(ExifOrientation.HEAD_BYTES);
+                    orientation = ExifOrientation.read(head, head.length);
+                    in.reset();
+                }
+                src = read(in, PhotoSize.FULL.getMaxEdge());
+            }
+            if (src == null)
+                throw new IOException("unsupported image " + key);
+            decoding = false;
+            src = orient(src, orientation);
+            boolean alpha = png && usesAlpha(src);
+            // largest first, each step scales the previous result down
+            BufferedImage current = src;
+            PhotoSize[] sizes = PhotoSize.values();
+            for (int i = sizes.length - 1; i >= 0; i--) {
+                current = scaleToFit(current, sizes[i].getMaxEdge(), alpha);
+                if (png)
+                    writePng(current, variantKey(key, sizes[i], PhotoRendition.PNG));
+                if (!alpha) {
+                    writeJpeg(current, variantKey(key, sizes[i], PhotoRendition.LITE), saveDataQuality);
+                    writeJpeg(current, variantKey(key, sizes[i], PhotoRendition.JPEG), jpegQuality);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            failures.increment();
+            if (decoding)
+                undecodable.add(key);
+            log.warn("Failed to generate derivatives for {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean usesAlpha(BufferedImage img) {
+        if (!img.getColorModel().hasAlpha())
+            return false;
+        int[] row = new int[img.getWidth()];
+        for (int y = 0; y < img.getHeight(); y++) {
+            img.getRGB(0, y, row.length, 1, row, 0, row.length);
+            for (int argb : row)
+                if (argb >>> 24 != 0xFF)
+                    return true;
+        }
+        return false;
+    }
+
+    // EXIF orientations 2..8: mirror and/or rotate so the pixels are upright
+    private static BufferedImage orient(BufferedImage src, int orientation) {
+        if (orientation <= 1 || orientation > 8)
+            return src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform t = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { t.translate(w, 0); t.scale(-1, 1); }
+            case 3 -> { t.translate(w, h); t.rotate(Math.PI); }
+            case 4 -> { t.translate(0, h); t.scale(1, -1); }
+            case 5 -> { t.rotate(Math.PI / 2); t.scale(1, -1); }
+            case 6 -> { t.translate(h, 0); t.rotate(Math.PI / 2); }
+            case 7 -> { t.translate(h, w); t.scale(-1, -1); t.rotate(Math.PI / 2); t.scale(1, -1); }
+            case 8 -> { t.translate(0, w); t.rotate(-Math.PI / 2); }
+            default -> { }
+        }
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h,
+                src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.drawImage(src, t, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    // decodes with source subsampling so a 24MP JPEG is never fully expanded in memory
+    private static BufferedImage read(InputStream source, int maxEdge) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            if (in == null)
+                return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext())
+                return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / maxEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scaleToFit(BufferedImage src, int maxEdge, boolean keepAlpha) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double scale = Math.min(1d, (double) maxEdge / Math.max(w, h));
+        int tw = Math.max(1, (int) Math.round(w * scale));
+        int th = Math.max(1, (int) Math.round(h * scale));
+        BufferedImage img = src;
+        // halve repeatedly, then one final bilinear pass: cheap and avoids aliasing
+        while (img.getWidth() / 2 >= tw && img.getHeight() / 2 >= th) {
+            img = draw(img, img.getWidth() / 2, img.getHeight() / 2, keepAlpha);
+        }
+        if (img.getWidth() != tw || img.getHeight() != th || img.getType() != targetType(keepAlpha)) {
+            img = draw(img, tw, th, keepAlpha);
+        }
+        return img;
+    }
+
+    private static int targetType(boolean keepAlpha) {
+        return keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+    }
+
+    private static BufferedImage draw(BufferedImage src, int w, int h, boolean keepAlpha) {
+        BufferedImage out = new BufferedImage(w, h, targetType(keepAlpha));
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!keepAlpha) {
+                g.setColor(Color.WHITE); // JPEG has no alpha channel
+                g.fillRect(0, 0, w, h);
+            }
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private void writePng(BufferedImage img, String key) throws IOException {
+        Path tmp = storage.createStagingFile();
+        try {
+            if (!ImageIO.write(img, "png", tmp.toFile()))
+                throw new IOException("no ImageIO writer");
+            storage.put(key, tmp, MediaType.IMAGE_PNG_VALUE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // progressive scans render a usable preview early; no metadata is passed, so none is written
+    private void writeJpeg(BufferedImage img, String key, float quality) throws IOException {
+        Path tmp = storage.createStagingFile();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(img, null, null), param);
+            }
+            storage.put(key, tmp, MediaType.IMAGE_JPEG_VALUE);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static byte[] renderPlaceholder() {
+        BufferedImage img = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(new Color(0xE5E7EB));
+        g.fillRect(0, 0, 16, 16);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(img, "png", out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,74 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.repository.PhotoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hashes photos uploaded before content hashes were recorded, off the request path.
+ * Until a photo has its hash it is served without an ETag. Each pass walks the unhashed
+ * photos by id a batch at a time and writes a hash only where none is set yet, so
+ * replicas doing the same work never overwrite each other or an edit of the row.
+ */
+@Service
+public class PhotoHashBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoHashBackfillService.class);
+
+    private final PhotoRepository photoRepo;
+    private final PhotoStorage storage;
+    private final int batchSize;
+
+    public PhotoHashBackfillService(PhotoRepository photoRepo, PhotoStorage storage,
+            @Value("${app.photos.hashBackfill.batchSize:50}") int batchSize) {
+        this.photoRepo = photoRepo;
+        this.storage = storage;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /** Hashes every photo still missing one; returns how many got a hash. */
+    @Scheduled(fixedDelayString = "${app.photos.hashBackfill.intervalMs:600000}")
+    public synchronized int backfill() {
+        int hashed = 0;
+        UUID after = null;
+        while (true) {
+            List<PhotoRepository.UnhashedRow> batch = after == null
+                    ? photoRepo.findUnhashed(PageRequest.of(0, batchSize))
+                    : photoRepo.findUnhashedAfter(after, PageRequest.of(0, batchSize));
+            if (batch.isEmpty())
+                return hashed;
+            for (PhotoRepository.UnhashedRow p : batch) {
+                try {
+                    hashed += photoRepo.setContentHashIfMissing(p.getId(), hash(p.getStoragePath()));
+                } catch (NoSuchFileException e) {
+                    // nothing to hash; the reaper's reconcile pass deals with missing files
+                } catch (IOException e) {
+                    log.warn("Could not hash photo {}: {}", p.getId(), e.toString());
+                }
+            }
+            after = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private String hash(String key) throws IOException {
+        MessageDigest sha = PhotoBlobService.sha256();
+        try (InputStream in = new DigestInputStream(storage.open(key), sha)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+}
@@ -0,0 +1,255 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Photo;
+import au.edu.rmit.sept.webapp.repository.PhotoRepository;
+import au.edu.rmit.sept.webapp.util.MultipartStreamReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming photo upload. The multipart body is parsed straight off the request
+ * (Spring's multipart resolver is disabled) and each file part is hashed, size
+ * checked and type sniffed while it is written to a staging file next to the blobs;
+ * a violation aborts the upload before the rest of the body is read. Committing a
+ * staged file (blob rename, ref count, Photo insert) runs on a bounded pool so it
+ * overlaps with reading the next part.
+ */
+@Service
+public class PhotoIngestService {
+
+    private static final byte[] JPEG_MAGIC = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF };
+    private static final byte[] PNG_MAGIC = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    private record Staged(Path tmp, String hash, long size, String contentType, String filename, Instant receivedAt) {
+    }
+
+    private final PhotoBlobService blobs;
+    private final PhotoRepository photoRepo;
+    private final PhotoDerivativeService derivatives;
+    private final long maxFileBytes;
+    private final long maxRequestBytes;
+    private final ThreadPoolExecutor executor;
+
+    public PhotoIngestService(PhotoBlobService blobs, PhotoRepository photoRepo, PhotoDerivativeService derivatives,
+            @Value("${app.photos.maxFileBytes:10485760}") long maxFileBytes,
+            @Value("${app.photos.maxRequestBytes:20971520}") long maxRequestBytes,
+            @Value("${app.photos.ingestThreads:4}") int threads,
+            @Value("${app.photos.ingestQueueCapacity:64}") int queueCapacity) {
+        this.blobs = blobs;
+        this.photoRepo = photoRepo;
+        this.derivatives = derivatives;
+        this.maxFileBytes = maxFileBytes;
+        this.maxRequestBytes = maxRequestBytes;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "photo-ingest-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // saturated: the request thread commits its own file, which slows its reads down
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /** Reads every "files" part of the request and returns the saved photos, all or nothing. */
+    public List<Photo> ingest(Event event, HttpServletRequest request) throws IOException {
+        String boundary = MultipartStreamReader.boundaryOf(request.getContentType());
+        if (boundary == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected multipart/form-data");
+        if (request.getContentLengthLong() > maxRequestBytes)
+            throw tooLarge();
+
+        MultipartStreamReader reader = new MultipartStreamReader(limit(request.getInputStream()), boundary);
+        List<Future<Photo>> pending = new ArrayList<>();
+        Instant last = Instant.MIN;
+        try {
+            for (MultipartStreamReader.Part part = reader.next(); part != null; part = reader.next()) {
+                if (!"files".equals(part.name()) || part.filename() == null)
+                    continue; // other form fields are skipped by next()
+                // commits finish in any order: timestamps taken here keep the gallery in request order
+                Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+                last = now.isAfter(last) ? now : last.plus(1, ChronoUnit.MICROS);
+                Staged staged = stage(part, last);
+                if (staged != null)
+                    pending.add(executor.submit(() -> commit(event, staged)));
+            }
+            if (pending.isEmpty())
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No files uploaded");
+
+            List<Photo> photos = new ArrayList<>();
+            for (Future<Photo> f : pending)
+                photos.add(await(f));
+            return photos;
+        } catch (MultipartStreamReader.MalformedException e) {
+            rollback(pending);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed upload: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            rollback(pending);
+            throw e;
+        }
+    }
+
+    // streams one part to a staging file, validating as the bytes arrive
+    private Staged stage(MultipartStreamReader.Part part, Instant receivedAt) throws IOException {
+        String declared = part.contentType() == null ? "" : part.contentType().trim();
+        boolean png = declared.equalsIgnoreCase(MediaType.IMAGE_PNG_VALUE);
+        if (!png && !declared.equalsIgnoreCase(MediaType.IMAGE_JPEG_VALUE))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only JPEG/PNG allowed");
+
+        InputStream in = part.body();
+        byte[] head = in.readNBytes(PNG_MAGIC.length);
+        if (head.length == 0)
+            return null; // empty file input, same as before: skipped
+        if (!startsWith(head, png ? PNG_MAGIC : JPEG_MAGIC))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File content is not a valid " + (png ? "PNG" : "JPEG"));
+
+        Path tmp = blobs.newTempFile();
+        try {
+            MessageDigest sha = PhotoBlobService.sha256();
+            long size = head.length;
+            sha.update(head);
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                out.write(head);
+                byte[] chunk = new byte[64 * 1024];
+                for (int n = in.read(chunk); n != -1; n = in.read(chunk)) {
+                    size += n;
+                    if (size > maxFileBytes)
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "File too large (max " + maxFileBytes / (1024 * 1024) + "MB)");
+                    sha.update(chunk, 0, n);
+                    out.write(chunk, 0, n);
+                }
+            }
+            String filename = StringUtils.hasText(part.filename())
+                    ? Paths.get(part.filename()).getFileName().toString()
+                    : "upload";
+            return new Staged(tmp, HexFormat.of().formatHex(sha.digest()), size,
+                    png ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE, filename, receivedAt);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private Photo commit(Event event, Staged staged) throws IOException {
+        // identical bytes (the same flyer on many events) are stored once
+        PhotoBlobService.StoredBlob blob = blobs.commit(staged.tmp(), staged.hash(), staged.size(), staged.contentType());
+        Photo p = new Photo();
+        p.setEvent(event);
+        p.setOriginalFilename(staged.filename());
+        p.setContentType(staged.contentType());
+        p.setSizeBytes(staged.size());
+        p.setStoragePath(blob.key());
+        p.setContentHash(blob.hash());
+        p.setCreatedAt(staged.receivedAt());
+        try {
+            p = photoRepo.save(p);
+        } catch (RuntimeException e) {
+            blobs.release(p);
+            throw e;
+        }
+        if (blob.created())
+            derivatives.submit(p.getId(), blob.key(), p.getContentType());
+        return p;
+    }
+
+    // undoes the parts that were already committed when a later part is rejected
+    private void rollback(List<Future<Photo>> pending) {
+        for (Future<Photo> f : pending) {
+            try {
+                Photo p = f.get();
+                blobs.release(p);
+                photoRepo.delete(p);
+            } catch (Exception ignored) {
+                // that part failed itself and cleaned up its own staging file
+            }
+        }
+    }
+
+    private static Photo await(Future<Photo> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            if (e.getCause() instanceof IOException io)
+                throw io;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // caps the whole body even when the client lies about (or omits) Content-Length
+    private InputStream limit(InputStream in) {
+        return new FilterInputStream(in) {
+            private long read;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1)
+                    count(1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0)
+                    count(n);
+                return n;
+            }
+
+            private void count(int n) {
+                read += n;
+                if (read > maxRequestBytes)
+                    throw tooLarge();
+            }
+        };
+    }
+
+    private ResponseStatusException tooLarge() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "Upload too large (max " + maxRequestBytes / (1024 * 1024) + "MB per request)");
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        return data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
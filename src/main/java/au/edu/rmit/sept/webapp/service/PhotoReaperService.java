@@ -0,0 +1,151 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.ExportJob;
+import au.edu.rmit.sept.webapp.model.PhotoDeletion;
+import au.edu.rmit.sept.webapp.repository.ExportJobRepository;
+import au.edu.rmit.sept.webapp.repository.PhotoBlobRepository;
+import au.edu.rmit.sept.webapp.repository.PhotoDeletionRepository;
+import au.edu.rmit.sept.webapp.repository.PhotoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes photo files off the request path. Deletes only queue keys in
+ * {@code photo_deletions} (see {@link PhotoBlobService#release}); this service drains
+ * the queue in batches once those rows are committed. A slower reconciliation pass
+ * lists the whole store and queues files no photo, blob or export job row points at,
+ * which catches leaks from crashes, abandoned staging files and older versions.
+ */
+@Service
+public class PhotoReaperService {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoReaperService.class);
+
+    private final PhotoDeletionRepository deletionRepo;
+    private final PhotoRepository photoRepo;
+    private final PhotoBlobRepository blobRepo;
+    private final ExportJobRepository exportRepo;
+    private final PhotoBlobService blobs;
+    private final PhotoStorage storage;
+    private final Clock clock;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration orphanMinAge;
+    private final Counter freedBytes;
+    private final Counter filesDeleted;
+    private final Counter failures;
+    private final Counter orphans;
+
+    public PhotoReaperService(PhotoDeletionRepository deletionRepo, PhotoRepository photoRepo,
+            PhotoBlobRepository blobRepo, ExportJobRepository exportRepo, PhotoBlobService blobs,
+            PhotoStorage storage, Clock clock,
+            MeterRegistry registry,
+            @Value("${app.photos.reaper.batchSize:100}") int batchSize,
+            @Value("${app.photos.reaper.maxAttempts:10}") int maxAttempts,
+            @Value("${app.photos.reconcile.minAgeMinutes:60}") long orphanMinAgeMinutes) {
+        this.deletionRepo = deletionRepo;
+        this.photoRepo = photoRepo;
+        this.blobRepo = blobRepo;
+        this.exportRepo = exportRepo;
+        this.blobs = blobs;
+        this.storage = storage;
+        this.clock = clock;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.orphanMinAge = Duration.ofMinutes(orphanMinAgeMinutes);
+        this.freedBytes = Counter.builder("photos.reaper.freed").baseUnit("bytes").register(registry);
+        this.filesDeleted = Counter.builder("photos.reaper.deleted").register(registry);
+        this.failures = Counter.builder("photos.reaper.failures").register(registry);
+        this.orphans = Counter.builder("photos.reconcile.orphans").register(registry);
+    }
+
+    /** Drains the deletion queue; returns the number of keys processed. */
+    @Scheduled(fixedDelayString = "${app.photos.reaper.intervalMs:10000}")
+    public synchronized int reap() {
+        int processed = 0;
+        while (true) {
+            List<PhotoDeletion> batch = deletionRepo.findByOrderByAttemptsAscEnqueuedAtAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty())
+                return processed;
+            List<PhotoDeletion> done = new ArrayList<>();
+            List<PhotoDeletion> retry = new ArrayList<>();
+            for (PhotoDeletion d : batch) {
+                try {
+                    long freed = blobs.reap(d.getStorageKey());
+                    if (freed >= 0) {
+                        freedBytes.increment(freed);
+                        filesDeleted.increment();
+                    }
+                    done.add(d);
+                } catch (IOException | RuntimeException e) {
+                    failures.increment();
+                    d.setAttempts(d.getAttempts() + 1);
+                    if (d.getAttempts() >= maxAttempts) {
+                        log.error("Giving up deleting photo file {} after {} attempts", d.getStorageKey(), d.getAttempts(), e);
+                        done.add(d);
+                    } else {
+                        log.warn("Could not delete photo file {} (attempt {}): {}", d.getStorageKey(), d.getAttempts(), e.toString());
+                        retry.add(d);
+                    }
+                }
+            }
+            deletionRepo.deleteAllInBatch(done);
+            deletionRepo.saveAll(retry);
+            processed += batch.size();
+            if (!retry.isEmpty())
+                return processed; // storage is unhappy: try the rest on the next run
+        }
+    }
+
+    /**
+     * Queues every stored file that nothing references and that is older than the
+     * minimum age (younger files may belong to an upload that has not committed yet).
+     * Returns the number of orphans queued.
+     */
+    @Scheduled(initialDelayString = "${app.photos.reconcile.intervalMs:21600000}",
+            fixedDelayString = "${app.photos.reconcile.intervalMs:21600000}")
+    public synchronized int reconcile() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        for (String path : photoRepo.findAllStoragePaths())
+            addWithVariants(referenced, storage.normalizeKey(path));
+        for (String path : blobRepo.findAllStoragePaths())
+            addWithVariants(referenced, storage.normalizeKey(path));
+        // export files share the store; ExportJobService purges them with their job
+        for (ExportJob job : exportRepo.findAll())
+            referenced.add(ExportJobService.key(job));
+
+        Instant cutoff = clock.instant().minus(orphanMinAge);
+        List<PhotoDeletion> queued = new ArrayList<>();
+        storage.list(object -> {
+            if (!referenced.contains(object.key()) && object.lastModified().isBefore(cutoff)
+                    && !deletionRepo.existsByStorageKey(object.key()))
+                queued.add(new PhotoDeletion(object.key()));
+        });
+        deletionRepo.saveAll(queued);
+        orphans.increment(queued.size());
+        if (!queued.isEmpty())
+            log.info("Reconciliation queued {} orphaned photo files", queued.size());
+        reap();
+        return queued.size();
+    }
+
+    private static void addWithVariants(Set<String> keys, String key) {
+        keys.add(key);
+        keys.addAll(PhotoDerivativeService.derivativeKeys(key));
+    }
+}
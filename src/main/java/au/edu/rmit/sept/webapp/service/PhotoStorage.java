@@ -0,0 +1,46 @@
+package au.edu.rmit.sept.webapp.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Where photo bytes live. Keys are relative, '/'-separated names such as
+ * {@code ab/cd/<sha256>.png}; {@code Photo.storagePath} holds the key. Uploads and
+ * derivatives are written to a local staging file first and then handed over
+ * with {@link #put}.
+ */
+public interface PhotoStorage {
+
+    /** One stored object, as seen by {@link #list}. */
+    record StoredObject(String key, long size, Instant lastModified) {
+    }
+
+    /** Local staging file for content that will be {@link #put}; callers delete it afterwards. */
+    Path createStagingFile() throws IOException;
+
+    /** Stores the staged file under the key, replacing any existing object. May move the file. */
+    void put(String key, Path staged, String contentType) throws IOException;
+
+    /** Object size in bytes, or -1 if there is no such object. */
+    long size(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    /** Deleting a missing object is not an error. */
+    void delete(String key) throws IOException;
+
+    /** The object as a local file, for zero-copy serving; empty for remote backends. */
+    Optional<Path> localFile(String key);
+
+    /** Visits every stored object, staging leftovers included; used to find orphans. */
+    void list(Consumer<StoredObject> visitor) throws IOException;
+
+    /** The key {@link #list} reports for a stored {@code Photo.storagePath}. */
+    default String normalizeKey(String storagePath) {
+        return storagePath;
+    }
+}
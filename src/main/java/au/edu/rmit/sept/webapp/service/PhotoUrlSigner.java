@@ -0,0 +1,101 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.Photo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Signs photo URLs so the raw endpoint can serve them without a database lookup.
+ * The token carries photo id, storage key (see {@link PhotoStorage}),
+ * content type and content hash, plus an expiry, all covered by an HMAC-SHA256.
+ * Expiry is aligned to {@code ttlSeconds} windows, so the same photo keeps the
+ * same URL for a whole window and browser caches stay warm.
+ */
+@Service
+public class PhotoUrlSigner {
+
+    public static final String SIGNED_PREFIX = "/api/photos/signed/";
+
+    /** What a valid token vouches for. {@code contentHash} may be null for old uploads. */
+    public record SignedPhoto(UUID photoId, String storageKey, String contentType, String contentHash) {
+    }
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+    private final Clock clock;
+    private final long ttlSeconds;
+    private final ThreadLocal<Mac> mac;
+
+    public PhotoUrlSigner(Clock clock,
+            @Value("${app.photos.urlSecret:${app.jwt.secret:dev-super-secret-change-me}}") String secret,
+            @Value("${app.photos.urlTtlSeconds:86400}") long ttlSeconds) {
+        this.clock = clock;
+        this.ttlSeconds = Math.max(60, ttlSeconds);
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac m = Mac.getInstance("HmacSHA256");
+                m.init(key);
+                return m;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /** Signed URL for the photo. */
+    public String url(Photo p) {
+        return url(p.getId(), p.getStoragePath(), p.getContentType(), p.getContentHash());
+    }
+
+    /** Signed URL from the photo's columns, for callers that did not load the entity. */
+    public String url(UUID photoId, String storageKey, String contentType, String contentHash) {
+        long now = clock.instant().getEpochSecond();
+        long exp = (now / ttlSeconds + 2) * ttlSeconds; // valid for between one and two windows
+        String payload = String.join("|", photoId.toString(), storageKey, contentType,
+                contentHash == null ? "" : contentHash, Long.toString(exp));
+        String body = B64.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return SIGNED_PREFIX + body + "." + B64.encodeToString(sign(body));
+    }
+
+    /** Verifies signature and expiry; any failure is a 403 so links can't be probed. */
+    public SignedPhoto verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0)
+            throw invalid();
+        String body = token.substring(0, dot);
+        try {
+            byte[] sig = B64D.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sig, sign(body)))
+                throw invalid();
+            String[] f = new String(B64D.decode(body), StandardCharsets.UTF_8).split("\\|", -1);
+            if (f.length != 5)
+                throw invalid();
+            if (clock.instant().getEpochSecond() >= Long.parseLong(f[4]))
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "photo link expired");
+            return new SignedPhoto(UUID.fromString(f[0]), f[1], f[2], f[3].isEmpty() ? null : f[3]);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    private byte[] sign(String body) {
+        return mac.get().doFinal(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.FORBIDDEN, "invalid photo link");
+    }
+}
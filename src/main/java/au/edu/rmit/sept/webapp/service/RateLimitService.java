@@ -0,0 +1,89 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.util.TokenBucketLimiter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-route-class rate limits keyed by client IP and by account email.
+ * Emits the RateLimit-Limit / RateLimit-Remaining / RateLimit-Reset headers and
+ * rejects with 429 + Retry-After once a bucket is empty.
+ */
+@Service
+public class RateLimitService {
+
+    public enum RouteClass {
+        AUTH, // login, register
+        WRITE // RSVPs, photo uploads
+    }
+
+    /** 429 raised when a bucket is exhausted. */
+    public static class TooManyRequestsException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        public TooManyRequestsException(long retryAfterSeconds) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "rate limit exceeded");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<RouteClass, TokenBucketLimiter> limiters = new EnumMap<>(RouteClass.class);
+
+    public RateLimitService(
+            @Value("${app.rateLimit.enabled:true}") boolean enabled,
+            @Value("${app.rateLimit.slots:16384}") int slots,
+            @Value("${app.rateLimit.auth.capacity:10}") long authCapacity,
+            @Value("${app.rateLimit.auth.refillPerMinute:10}") double authRefillPerMinute,
+            @Value("${app.rateLimit.write.capacity:30}") long writeCapacity,
+            @Value("${app.rateLimit.write.refillPerMinute:60}") double writeRefillPerMinute) {
+        this.enabled = enabled;
+        limiters.put(RouteClass.AUTH, new TokenBucketLimiter(slots, authCapacity, authRefillPerMinute / 60d));
+        limiters.put(RouteClass.WRITE, new TokenBucketLimiter(slots, writeCapacity, writeRefillPerMinute / 60d));
+    }
+
+    public void enforceForIp(RouteClass routeClass, String ip, HttpServletResponse response) {
+        enforce(routeClass, "ip:" + ip, response);
+    }
+
+    public void enforceForAccount(RouteClass routeClass, String email, HttpServletResponse response) {
+        if (email == null || email.isBlank())
+            return;
+        enforce(routeClass, "acct:" + email.toLowerCase().trim(), response);
+    }
+
+    private void enforce(RouteClass routeClass, String key, HttpServletResponse response) {
+        if (!enabled)
+            return;
+        TokenBucketLimiter.Decision d = limiters.get(routeClass).tryAcquire(key);
+        writeHeaders(response, d);
+        if (!d.allowed())
+            throw new TooManyRequestsException(d.retryAfterSeconds());
+    }
+
+    // when both the IP and the account bucket are checked, report the tighter one
+    private static void writeHeaders(HttpServletResponse response, TokenBucketLimiter.Decision d) {
+        if (response == null)
+            return;
+        String existing = response.getHeader("RateLimit-Remaining");
+        if (existing != null && Long.parseLong(existing) <= d.remaining())
+            return;
+        response.setHeader("RateLimit-Limit", String.valueOf(d.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(d.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(d.resetSeconds()));
+    }
+}
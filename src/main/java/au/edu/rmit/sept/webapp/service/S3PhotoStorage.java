@@ -0,0 +1,167 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.util.AwsSigV4Signer;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * S3-compatible driver (AWS S3, MinIO, ...) speaking plain REST with SigV4 signing,
+ * path-style addressing ({@code <endpoint>/<bucket>/<key>}). Lets several app
+ * replicas share one photo store instead of a pod-local volume.
+ */
+public class S3PhotoStorage implements PhotoStorage {
+
+    private final URI bucketUri;
+    private final AwsSigV4Signer signer;
+    private final Clock clock;
+    private final HttpClient http;
+
+    public S3PhotoStorage(String endpoint, String bucket, String region, String accessKey, String secretKey,
+            Clock clock) {
+        String base = endpoint.endsWith("/") ? endpoint : endpoint + "/";
+        this.bucketUri = URI.create(base + AwsSigV4Signer.encodePath(bucket) + "/");
+        this.signer = new AwsSigV4Signer(accessKey, secretKey, region, "s3");
+        this.clock = clock;
+        this.http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        return Files.createTempFile("photo-upload-", ".tmp");
+    }
+
+    @Override
+    public void put(String key, Path staged, String contentType) throws IOException {
+        HttpResponse<Void> res = send(request("PUT", key, Map.of("Content-Type", contentType))
+                .PUT(HttpRequest.BodyPublishers.ofFile(staged)), HttpResponse.BodyHandlers.discarding());
+        if (res.statusCode() / 100 != 2)
+            throw new IOException("S3 PUT " + key + " failed: HTTP " + res.statusCode());
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        HttpResponse<Void> res = send(request("HEAD", key, Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        if (res.statusCode() == 404)
+            return -1;
+        if (res.statusCode() / 100 != 2)
+            throw new IOException("S3 HEAD " + key + " failed: HTTP " + res.statusCode());
+        return res.headers().firstValueAsLong("Content-Length").orElse(-1);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        HttpResponse<InputStream> res = send(request("GET", key, Map.of()).GET(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (res.statusCode() / 100 == 2)
+            return res.body();
+        res.body().close();
+        if (res.statusCode() == 404)
+            throw new NoSuchFileException(key);
+        throw new IOException("S3 GET " + key + " failed: HTTP " + res.statusCode());
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<Void> res = send(request("DELETE", key, Map.of()).DELETE(),
+                HttpResponse.BodyHandlers.discarding());
+        if (res.statusCode() / 100 != 2 && res.statusCode() != 404)
+            throw new IOException("S3 DELETE " + key + " failed: HTTP " + res.statusCode());
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.empty();
+    }
+
+    /** ListObjectsV2, one page of up to 1000 keys per request. */
+    @Override
+    public void list(Consumer<StoredObject> visitor) throws IOException {
+        String token = null;
+        do {
+            // query parameters must be sorted and encoded for the signature
+            String query = (token == null ? "" : "continuation-token=" + AwsSigV4Signer.encode(token) + "&")
+                    + "list-type=2";
+            HttpResponse<InputStream> res = send(request("GET", bucketUri.resolve("?" + query), Map.of()).GET(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            Document doc;
+            try (InputStream body = res.body()) {
+                if (res.statusCode() / 100 != 2)
+                    throw new IOException("S3 list failed: HTTP " + res.statusCode());
+                doc = parse(body);
+            }
+            NodeList contents = doc.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element c = (Element) contents.item(i);
+                visitor.accept(new StoredObject(text(c, "Key"), Long.parseLong(text(c, "Size")),
+                        Instant.parse(text(c, "LastModified"))));
+            }
+            token = "true".equals(text(doc.getDocumentElement(), "IsTruncated"))
+                    ? text(doc.getDocumentElement(), "NextContinuationToken")
+                    : null;
+        } while (token != null);
+    }
+
+    private static Document parse(InputStream in) throws IOException {
+        try {
+            DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
+            f.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            f.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            return f.newDocumentBuilder().parse(in);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("unreadable S3 list response", e);
+        }
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+    }
+
+    private HttpRequest.Builder request(String method, String key, Map<String, String> headers) {
+        if (key.startsWith("/") || key.contains(".."))
+            throw new IllegalArgumentException("invalid storage key: " + key);
+        return request(method, bucketUri.resolve(AwsSigV4Signer.encodePath(key)), headers);
+    }
+
+    private HttpRequest.Builder request(String method, URI uri, Map<String, String> headers) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30));
+        headers.forEach(b::header);
+        signer.sign(method, uri, headers, AwsSigV4Signer.UNSIGNED_PAYLOAD, ZonedDateTime.now(clock))
+                .forEach(b::header);
+        return b;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        try {
+            return http.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+    }
+}
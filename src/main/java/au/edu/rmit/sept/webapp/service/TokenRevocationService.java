@@ -0,0 +1,71 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory revocation epochs per token subject (email). A token whose {@code iat}
+ * is before its subject's epoch is rejected; banned or deactivated users get an
+ * infinite epoch so every token is rejected. Most subjects were never revoked, so
+ * a Bloom filter answers the common case before touching the map.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final long REVOKE_ALL = Long.MAX_VALUE;
+
+    private final UserRepository userRepo;
+    private final Clock clock;
+    private final BloomFilter revokedSubjects;
+    private final Map<String, Long> epochs = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(UserRepository userRepo, Clock clock,
+            @Value("${app.revocation.expectedSubjects:10000}") int expectedSubjects) {
+        this.userRepo = userRepo;
+        this.clock = clock;
+        this.revokedSubjects = new BloomFilter(expectedSubjects, 0.01);
+    }
+
+    @PostConstruct
+    void loadBlockedUsers() {
+        for (AppUser u : userRepo.findByBannedTrueOrActiveFalse()) {
+            setEpoch(u.getEmail(), REVOKE_ALL);
+        }
+    }
+
+    /** Called after an admin changes a user's ban/active flags or role. */
+    public void onAccessChanged(AppUser u) {
+        if (u.isBanned() || !u.isActive()) {
+            setEpoch(u.getEmail(), REVOKE_ALL);
+        } else {
+            // tokens minted before now carry stale role/flags
+            setEpoch(u.getEmail(), clock.instant().getEpochSecond());
+        }
+    }
+
+    public boolean isRevoked(String subject, long issuedAtSeconds) {
+        if (subject == null)
+            return false;
+        String key = subject.toLowerCase().trim();
+        if (!revokedSubjects.mightContain(key))
+            return false;
+        Long epoch = epochs.get(key);
+        return epoch != null && issuedAtSeconds < epoch;
+    }
+
+    private void setEpoch(String email, long epoch) {
+        if (email == null)
+            return;
+        String key = email.toLowerCase().trim();
+        epochs.put(key, epoch);
+        revokedSubjects.add(key);
+    }
+}
@@ -0,0 +1,88 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, in-memory cache of the user fields needed to authorize a request
+ * (id, email, role, active/banned flags), keyed by email.
+ * Writers that change those fields must call {@link #evict(String)}; the TTL is only a safety net.
+ */
+@Service
+public class UserPrincipalCache {
+
+    public record Principal(UUID id, String email, String role, boolean active, boolean banned) {
+        static Principal of(AppUser u) {
+            return new Principal(u.getId(), u.getEmail(), u.getRole(), u.isActive(), u.isBanned());
+        }
+    }
+
+    private record Entry(Principal principal, long loadedAtMillis) {
+    }
+
+    private final UserRepository userRepo;
+    private final Clock clock;
+
+    // bumped on every eviction so a load that raced with an admin change is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Value("${app.principalCache.maxEntries:10000}")
+    private int maxEntries;
+
+    @Value("${app.principalCache.ttlSeconds:60}")
+    private long ttlSeconds;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public UserPrincipalCache(UserRepository userRepo, Clock clock) {
+        this.userRepo = userRepo;
+        this.clock = clock;
+    }
+
+    public Optional<Principal> findByEmail(String email) {
+        if (email == null || email.isBlank())
+            return Optional.empty();
+        String key = email.toLowerCase().trim();
+        long now = clock.millis();
+
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && now - e.loadedAtMillis() < ttlSeconds * 1000L)
+                return Optional.of(e.principal());
+        }
+
+        long gen = generation.get();
+        Optional<Principal> loaded = userRepo.findByEmail(key).map(Principal::of);
+        // unknown emails are not cached: RsvpApi/FeedbackApi may create the user right after
+        loaded.ifPresent(p -> {
+            synchronized (entries) {
+                if (generation.get() == gen)
+                    entries.put(key, new Entry(p, now));
+            }
+        });
+        return loaded;
+    }
+
+    public void evict(String email) {
+        if (email == null)
+            return;
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(email.toLowerCase().trim());
+        }
+    }
+}
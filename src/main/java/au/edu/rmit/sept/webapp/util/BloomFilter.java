@@ -0,0 +1,64 @@
+package au.edu.rmit.sept.webapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, add-only Bloom filter over strings. A negative answer is exact,
+ * a positive one means "maybe" (false-positive rate chosen at construction).
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    public BloomFilter(int expectedEntries, double falsePositiveRate) {
+        int n = Math.max(1, expectedEntries);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, m));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+        this.bits = new AtomicLongArray((bitCount + 63) / 64);
+    }
+
+    public void add(String value) {
+        long h = hash64(value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            long cur;
+            while (((cur = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, cur, cur | mask)) {
+                // retry until the bit is visible
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h = hash64(value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    // FNV-1a followed by a 64-bit finalizer; split into two 32-bit halves (Kirsch-Mitzenmacher)
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,16 @@
+package au.edu.rmit.sept.webapp.util;
+
+/** CSV field quoting shared by the attendee export and the admin dumps. */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    // RFC 4180 escaping
+    public static String field(String value) {
+        if (value == null) return "";
+        boolean needs = value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r");
+        String v = value.replace("\"", "\"\"");
+        return needs ? "\"" + v + "\"" : v;
+    }
+}
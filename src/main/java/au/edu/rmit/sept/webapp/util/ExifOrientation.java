@@ -0,0 +1,72 @@
+package au.edu.rmit.sept.webapp.util;
+
+/**
+ * Reads the EXIF orientation tag (0x0112) from the start of a JPEG. Derivatives are
+ * re-encoded without any metadata, so the rotation a phone recorded there has to be
+ * applied to the pixels instead.
+ */
+public final class ExifOrientation {
+
+    /** Bytes to buffer so the APP1 segment (at most 64KB) is fully visible. */
+    public static final int HEAD_BYTES = 128 * 1024;
+
+    private ExifOrientation() {
+    }
+
+    /** Orientation 1..8 (1 = upright), or 1 when absent or unreadable. */
+    public static int read(byte[] head, int length) {
+        if (length < 4 || (head[0] & 0xFF) != 0xFF || (head[1] & 0xFF) != 0xD8)
+            return 1;
+        int pos = 2;
+        while (pos + 4 <= length && (head[pos] & 0xFF) == 0xFF) {
+            int marker = head[pos + 1] & 0xFF;
+            int segLen = u16(head, pos + 2, false);
+            if (marker == 0xDA || segLen < 2)
+                return 1; // image data starts: no EXIF before it
+            int data = pos + 4;
+            if (marker == 0xE1 && data + 6 <= length && isExif(head, data))
+                return fromTiff(head, data + 6, Math.min(length, pos + 2 + segLen));
+            pos += 2 + segLen;
+        }
+        return 1;
+    }
+
+    private static boolean isExif(byte[] b, int i) {
+        return b[i] == 'E' && b[i + 1] == 'x' && b[i + 2] == 'i' && b[i + 3] == 'f' && b[i + 4] == 0 && b[i + 5] == 0;
+    }
+
+    private static int fromTiff(byte[] b, int tiff, int end) {
+        if (tiff + 8 > end)
+            return 1;
+        boolean little = b[tiff] == 'I' && b[tiff + 1] == 'I';
+        if (!little && !(b[tiff] == 'M' && b[tiff + 1] == 'M'))
+            return 1;
+        long ifd = u32(b, tiff + 4, little);
+        int entries = tiff + (int) ifd;
+        if (ifd < 8 || entries + 2 > end)
+            return 1;
+        int count = u16(b, entries, little);
+        for (int i = 0; i < count; i++) {
+            int entry = entries + 2 + i * 12;
+            if (entry + 12 > end)
+                return 1;
+            if (u16(b, entry, little) == 0x0112) {
+                int value = u16(b, entry + 8, little);
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int u16(byte[] b, int i, boolean little) {
+        int a = b[i] & 0xFF;
+        int c = b[i + 1] & 0xFF;
+        return little ? a | c << 8 : a << 8 | c;
+    }
+
+    private static long u32(byte[] b, int i, boolean little) {
+        return little
+                ? (u16(b, i, true) | (long) u16(b, i + 2, true) << 16)
+                : ((long) u16(b, i, false) << 16 | u16(b, i + 2, false));
+    }
+}
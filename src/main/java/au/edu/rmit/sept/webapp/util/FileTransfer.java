@@ -0,0 +1,54 @@
+package au.edu.rmit.sept.webapp.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a whole file as the response body without copying it through the heap.
+ * On Tomcat's NIO connector the transfer is handed to the container, which uses
+ * sendfile(2) once the servlet returns; elsewhere (e.g. MockMvc) it falls back to
+ * {@link FileChannel#transferTo}. Headers, including Content-Length, must already
+ * be set on the response.
+ */
+public final class FileTransfer {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // same cut-off as Tomcat's DefaultServlet: below this a plain write is cheaper
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private FileTransfer() {
+    }
+
+    public static void send(HttpServletRequest req, HttpServletResponse res, Path file, long length)
+            throws IOException {
+        if (length >= SENDFILE_MIN_BYTES
+                && "GET".equals(req.getMethod())
+                && Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            req.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            req.setAttribute(SENDFILE_START, 0L);
+            req.setAttribute(SENDFILE_END, length);
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long pos = 0;
+            while (pos < length) {
+                long n = ch.transferTo(pos, length - pos, out);
+                if (n <= 0)
+                    break; // file shrank underneath us; Content-Length is already committed
+                pos += n;
+            }
+        }
+    }
+}
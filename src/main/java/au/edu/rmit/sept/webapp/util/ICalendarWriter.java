@@ -0,0 +1,93 @@
+package au.edu.rmit.sept.webapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Minimal RFC 5545 writer for VEVENT feeds: CRLF line endings, TEXT escaping and
+ * folding at 75 octets. Event start times are stored without a zone, so they are
+ * written as floating local times and show at the same wall-clock time everywhere.
+ */
+public class ICalendarWriter {
+
+    private static final DateTimeFormatter LOCAL = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final StringBuilder out = new StringBuilder(4096);
+    private final String stamp;
+
+    public ICalendarWriter(String name, Instant stamp) {
+        this.stamp = UTC.format(stamp);
+        line("BEGIN:VCALENDAR");
+        line("VERSION:2.0");
+        line("PRODID:-//RMIT Events//Calendar Feed//EN");
+        line("CALSCALE:GREGORIAN");
+        line("METHOD:PUBLISH");
+        text("X-WR-CALNAME", name);
+    }
+
+    /** Adds one event; {@code status} is CONFIRMED or TENTATIVE. */
+    public ICalendarWriter event(String uid, LocalDateTime start, String summary, String description,
+            String location, String category, String status) {
+        line("BEGIN:VEVENT");
+        line("UID:" + uid);
+        line("DTSTAMP:" + stamp);
+        line("DTSTART:" + LOCAL.format(start));
+        line("DURATION:PT1H"); // events have no end time yet
+        text("SUMMARY", summary);
+        if (description != null && !description.isBlank())
+            text("DESCRIPTION", description);
+        if (location != null && !location.isBlank())
+            text("LOCATION", location);
+        if (category != null && !category.isBlank())
+            text("CATEGORIES", category);
+        if (status != null)
+            line("STATUS:" + status);
+        line("END:VEVENT");
+        return this;
+    }
+
+    public byte[] finish() {
+        line("END:VCALENDAR");
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void text(String name, String value) {
+        StringBuilder v = new StringBuilder(value == null ? 0 : value.length());
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> v.append("\\\\");
+                    case ';' -> v.append("\\;");
+                    case ',' -> v.append("\\,");
+                    case '\n' -> v.append("\\n");
+                    case '\r' -> { }
+                    default -> v.append(c);
+                }
+            }
+        }
+        line(name + ":" + v);
+    }
+
+    // content lines longer than 75 octets continue on lines starting with a space
+    private void line(String content) {
+        int octets = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            int n = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : 3;
+            if (octets + n > 75) {
+                out.append("\r\n ");
+                octets = 1;
+            }
+            out.append(c);
+            if (Character.isHighSurrogate(c) && i + 1 < content.length())
+                out.append(content.charAt(++i)); // keep surrogate pairs together
+            octets += n;
+        }
+        out.append("\r\n");
+    }
+}
@@ -0,0 +1,218 @@
+package au.edu.rmit.sept.webapp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Minimal streaming multipart/form-data reader (RFC 7578). Parts are exposed one at
+ * a time as an InputStream over the underlying request body, so nothing is buffered
+ * beyond a fixed window. Reading the next part skips whatever is left of the current one.
+ */
+public class MultipartStreamReader {
+
+    /** One part; {@code filename} is null for plain form fields. */
+    public record Part(String name, String filename, String contentType, InputStream body) {
+    }
+
+    /** The body does not follow the multipart grammar (as opposed to an I/O failure). */
+    public static class MalformedException extends IOException {
+        public MalformedException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter; // CRLF "--" boundary
+    private final byte[] buf;
+    private int head;
+    private int tail;
+    private boolean eof;
+    private boolean inBody = true; // the preamble is skipped like an unread body
+    private boolean finished;
+
+    public MultipartStreamReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buf = new byte[Math.max(64 * 1024, delimiter.length * 4)];
+        // a leading "--boundary" then matches like every later delimiter
+        buf[0] = '\r';
+        buf[1] = '\n';
+        tail = 2;
+    }
+
+    /** Extracts the boundary parameter from a multipart Content-Type, or null. */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/"))
+            return null;
+        for (String param : contentType.split(";")) {
+            String p = param.trim();
+            if (p.regionMatches(true, 0, "boundary=", 0, 9)) {
+                String b = p.substring(9);
+                if (b.length() >= 2 && b.startsWith("\"") && b.endsWith("\""))
+                    b = b.substring(1, b.length() - 1);
+                return b.isEmpty() || b.length() > 70 ? null : b;
+            }
+        }
+        return null;
+    }
+
+    /** Advances to the next part, or returns null after the closing delimiter. */
+    public Part next() throws IOException {
+        if (finished)
+            return null;
+        if (inBody) {
+            byte[] skip = new byte[8192];
+            while (readBody(skip, 0, skip.length) != -1) {
+                // discard
+            }
+        }
+        head += delimiter.length;
+        if (!ensure(2))
+            throw new MalformedException("truncated multipart body");
+        if (buf[head] == '-' && buf[head + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        readLine(); // rest of the delimiter line (transport padding)
+
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        int headerBytes = 0;
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_BYTES)
+                throw new MalformedException("multipart headers too large");
+            int colon = line.indexOf(':');
+            if (colon < 0)
+                continue;
+            String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (key.equals("content-disposition")) {
+                name = param(value, "name");
+                filename = param(value, "filename");
+            } else if (key.equals("content-type")) {
+                contentType = value;
+            }
+        }
+        inBody = true;
+        return new Part(name, filename, contentType, new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return len == 0 ? 0 : readBody(b, off, len);
+            }
+        });
+    }
+
+    private int readBody(byte[] b, int off, int len) throws IOException {
+        if (!inBody)
+            return -1;
+        ensure(delimiter.length);
+        int idx = indexOfDelimiter();
+        int available;
+        if (idx >= 0) {
+            available = idx - head;
+            if (available == 0) {
+                inBody = false;
+                return -1;
+            }
+        } else {
+            if (eof)
+                throw new MalformedException("truncated multipart body");
+            // keep a possible partial delimiter at the end of the window
+            available = tail - head - (delimiter.length - 1);
+        }
+        int n = Math.min(len, available);
+        System.arraycopy(buf, head, b, off, n);
+        head += n;
+        return n;
+    }
+
+    private String readLine() throws IOException {
+        int scanned = 0; // relative to head, which may move when the window is compacted
+        while (true) {
+            for (int i = head + scanned; i + 1 < tail; i++) {
+                if (buf[i] == '\r' && buf[i + 1] == '\n') {
+                    String line = new String(buf, head, i - head, StandardCharsets.UTF_8);
+                    head = i + 2;
+                    return line;
+                }
+            }
+            scanned = Math.max(0, tail - head - 1);
+            if (tail - head > MAX_HEADER_BYTES)
+                throw new MalformedException("multipart header line too long");
+            if (!ensure(tail - head + 1))
+                throw new MalformedException("truncated multipart headers");
+        }
+    }
+
+    private int indexOfDelimiter() {
+        byte first = delimiter[0];
+        outer:
+        for (int i = head; i <= tail - delimiter.length; i++) {
+            if (buf[i] != first)
+                continue;
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buf[i + j] != delimiter[j])
+                    continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // makes at least n unread bytes available unless the stream ends first
+    private boolean ensure(int n) throws IOException {
+        while (tail - head < n && !eof) {
+            if (tail == buf.length) {
+                System.arraycopy(buf, head, buf, 0, tail - head);
+                tail -= head;
+                head = 0;
+            }
+            int r = in.read(buf, tail, buf.length - tail);
+            if (r < 0)
+                eof = true;
+            else
+                tail += r;
+        }
+        return tail - head >= n;
+    }
+
+    // parameter of a header value, honouring quotes (filenames may contain ';')
+    private static String param(String header, String key) {
+        int i = header.indexOf(';');
+        while (i >= 0 && i < header.length()) {
+            int eq = header.indexOf('=', i);
+            if (eq < 0)
+                return null;
+            String k = header.substring(i + 1, eq).trim();
+            int start = eq + 1;
+            String v;
+            int end;
+            if (start < header.length() && header.charAt(start) == '"') {
+                end = header.indexOf('"', start + 1);
+                if (end < 0)
+                    end = header.length();
+                v = header.substring(start + 1, end);
+                end = header.indexOf(';', end);
+            } else {
+                end = header.indexOf(';', start);
+                v = header.substring(start, end < 0 ? header.length() : end).trim();
+            }
+            if (k.equalsIgnoreCase(key))
+                return v;
+            i = end;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,227 @@
+package au.edu.rmit.sept.webapp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a ZIP archive of uncompressed (STORED) entries straight to an output
+ * stream, one small buffer at a time. JPEG/PNG do not shrink under deflate, so
+ * storing them costs nothing and makes every offset computable up front: the
+ * archive length is known before the first byte is written, and the same entries
+ * always produce the same bytes. That is what lets {@link #write(OutputStream, long, long)}
+ * serve a byte range of it, so interrupted downloads can resume.
+ * <p>
+ * CRCs are not known in advance, so each entry is followed by a data descriptor
+ * (general purpose bit 3). No ZIP64: archives must stay below 4 GiB and 65535 entries.
+ */
+public class StoredZipWriter {
+
+    /** Opens an entry's bytes; called once per write, in entry order. */
+    @FunctionalInterface
+    public interface Body {
+        InputStream open() throws IOException;
+    }
+
+    public record Entry(String name, long size, Instant modified, Body body) {
+    }
+
+    /** The archive would need ZIP64. */
+    public static class TooLargeException extends IllegalStateException {
+        public TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int LOCAL_HEADER = 30;
+    private static final int DATA_DESCRIPTOR = 16;
+    private static final int CENTRAL_HEADER = 46;
+    private static final int END_RECORD = 22;
+    private static final int FLAGS = 0x0808; // bit 3: data descriptor, bit 11: UTF-8 names
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    private final List<Entry> entries;
+    private final List<byte[]> names = new ArrayList<>();
+    private final long length;
+
+    public StoredZipWriter(List<Entry> entries) {
+        if (entries.size() > 0xFFFF)
+            throw new TooLargeException("too many entries for a ZIP archive: " + entries.size());
+        this.entries = List.copyOf(entries);
+        long total = END_RECORD;
+        for (Entry e : this.entries) {
+            byte[] name = e.name().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            total += LOCAL_HEADER + name.length + e.size() + DATA_DESCRIPTOR + CENTRAL_HEADER + name.length;
+        }
+        if (total > MAX_32)
+            throw new TooLargeException("ZIP archive would exceed 4 GiB");
+        this.length = total;
+    }
+
+    /** Exact size of the archive in bytes. */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Writes bytes {@code from..to} (inclusive) of the archive. Entries before {@code from}
+     * are still read, since their CRCs go into the central directory, but not sent.
+     */
+    public void write(OutputStream out, long from, long to) throws IOException {
+        RangeOutput range = new RangeOutput(out, from, to);
+        try {
+            writeArchive(range);
+        } catch (RangeOutput.Done done) {
+            // everything requested has been written
+        }
+        out.flush();
+    }
+
+    private void writeArchive(RangeOutput out) throws IOException {
+        long[] crcs = new long[entries.size()];
+        long[] offsets = new long[entries.size()];
+        byte[] buf = new byte[64 * 1024];
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            byte[] name = names.get(i);
+            offsets[i] = out.position();
+            out.le32(0x04034b50);
+            out.le16(20); // version needed: 2.0
+            out.le16(FLAGS);
+            out.le16(0); // STORED
+            out.le32(dosTime(e.modified()));
+            out.le32(0); // crc and sizes follow in the data descriptor
+            out.le32(0);
+            out.le32(0);
+            out.le16(name.length);
+            out.le16(0);
+            out.write(name);
+
+            CRC32 crc = new CRC32();
+            long written = 0;
+            try (InputStream in = e.body().open()) {
+                for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+                    written += n;
+                    if (written > e.size())
+                        break;
+                    crc.update(buf, 0, n);
+                    out.write(buf, 0, n);
+                }
+            }
+            if (written != e.size()) // every later offset would be wrong: abort rather than send garbage
+                throw new IOException("size of " + e.name() + " changed while zipping");
+            crcs[i] = crc.getValue();
+
+            out.le32(0x08074b50);
+            out.le32(crcs[i]);
+            out.le32(e.size());
+            out.le32(e.size());
+        }
+
+        long centralStart = out.position();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            byte[] name = names.get(i);
+            out.le32(0x02014b50);
+            out.le16(20); // made by: 2.0, MS-DOS attributes
+            out.le16(20);
+            out.le16(FLAGS);
+            out.le16(0);
+            out.le32(dosTime(e.modified()));
+            out.le32(crcs[i]);
+            out.le32(e.size());
+            out.le32(e.size());
+            out.le16(name.length);
+            out.le16(0); // extra
+            out.le16(0); // comment
+            out.le16(0); // disk
+            out.le16(0); // internal attributes
+            out.le32(0); // external attributes
+            out.le32(offsets[i]);
+            out.write(name);
+        }
+        long centralSize = out.position() - centralStart;
+
+        out.le32(0x06054b50);
+        out.le16(0);
+        out.le16(0);
+        out.le16(entries.size());
+        out.le16(entries.size());
+        out.le32(centralSize);
+        out.le32(centralStart);
+        out.le16(0);
+    }
+
+    // DOS timestamps have no zone; UTC keeps the bytes independent of the server's zone
+    private static long dosTime(Instant instant) {
+        LocalDateTime t = LocalDateTime.ofInstant(instant == null ? Instant.EPOCH : instant, ZoneOffset.UTC);
+        if (t.getYear() < 1980)
+            t = LocalDateTime.of(1980, 1, 1, 0, 0);
+        return ((long) (t.getYear() - 1980) << 25) | ((long) t.getMonthValue() << 21) | ((long) t.getDayOfMonth() << 16)
+                | ((long) t.getHour() << 11) | ((long) t.getMinute() << 5) | (t.getSecond() >> 1);
+    }
+
+    /** Tracks the archive position and passes through only the requested byte range. */
+    private static final class RangeOutput {
+
+        static final class Done extends IOException {
+            @Override
+            public synchronized Throwable fillInStackTrace() {
+                return this; // control flow only
+            }
+        }
+
+        private final OutputStream out;
+        private final long from;
+        private final long to;
+        private final byte[] scratch = new byte[4];
+        private long position;
+
+        RangeOutput(OutputStream out, long from, long to) {
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        long position() {
+            return position;
+        }
+
+        void le16(int v) throws IOException {
+            scratch[0] = (byte) v;
+            scratch[1] = (byte) (v >>> 8);
+            write(scratch, 0, 2);
+        }
+
+        void le32(long v) throws IOException {
+            scratch[0] = (byte) v;
+            scratch[1] = (byte) (v >>> 8);
+            scratch[2] = (byte) (v >>> 16);
+            scratch[3] = (byte) (v >>> 24);
+            write(scratch, 0, 4);
+        }
+
+        void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        void write(byte[] b, int off, int len) throws IOException {
+            long start = Math.max(position, from);
+            long end = Math.min(position + len - 1, to);
+            if (start <= end)
+                out.write(b, off + (int) (start - position), (int) (end - start + 1));
+            position += len;
+            if (position > to)
+                throw new Done();
+        }
+    }
+}
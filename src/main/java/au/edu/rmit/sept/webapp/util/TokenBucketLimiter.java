@@ -0,0 +1,89 @@
+package au.edu.rmit.sept.webapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free token buckets stored in a fixed-size, direct-mapped table.
+ *
+ * Each key hashes (with a per-instance random seed) to one slot. A slot is
+ * replaced by a new key only once its current owner has fully refilled, i.e.
+ * gone idle; while the owner is active, a colliding key shares its bucket.
+ * Sharing can only make limiting stricter, never looser, and the table never
+ * grows, so memory stays fixed no matter how many distinct keys are seen.
+ */
+public class TokenBucketLimiter {
+
+    public record Decision(boolean allowed, long limit, long remaining, long resetSeconds, long retryAfterSeconds) {
+    }
+
+    private record Bucket(long keyHash, double tokens, long lastNanos) {
+    }
+
+    private final AtomicReferenceArray<Bucket> slots;
+    private final int mask;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    private final long capacity;
+    private final double tokensPerNano;
+
+    public TokenBucketLimiter(int slotCount, long capacity, double refillPerSecond) {
+        if (capacity < 1 || refillPerSecond <= 0)
+            throw new IllegalArgumentException("capacity and refill rate must be positive");
+        int size = Integer.highestOneBit(Math.max(16, slotCount - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / 1_000_000_000d;
+    }
+
+    public Decision tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    Decision tryAcquire(String key, long nowNanos) {
+        long h = hash(key);
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (true) {
+            Bucket cur = slots.get(i);
+            Bucket base;
+            if (cur == null) {
+                base = new Bucket(h, capacity, nowNanos);
+            } else {
+                double tokens = refill(cur, nowNanos);
+                base = (cur.keyHash() != h && tokens >= capacity)
+                        ? new Bucket(h, capacity, nowNanos) // evict idle owner
+                        : new Bucket(cur.keyHash(), tokens, nowNanos);
+            }
+            boolean allowed = base.tokens() >= 1d;
+            Bucket next = allowed ? new Bucket(base.keyHash(), base.tokens() - 1d, nowNanos) : base;
+            if (slots.compareAndSet(i, cur, next))
+                return decision(allowed, next.tokens());
+        }
+    }
+
+    private double refill(Bucket b, long nowNanos) {
+        long elapsed = Math.max(0L, nowNanos - b.lastNanos());
+        return Math.min(capacity, b.tokens() + elapsed * tokensPerNano);
+    }
+
+    private Decision decision(boolean allowed, double tokens) {
+        double perSecond = tokensPerNano * 1_000_000_000d;
+        long reset = (long) Math.ceil((capacity - tokens) / perSecond);
+        long retryAfter = allowed ? 0L : (long) Math.max(1d, Math.ceil((1d - tokens) / perSecond));
+        return new Decision(allowed, capacity, (long) Math.floor(tokens), reset, retryAfter);
+    }
+
+    // seeded FNV-1a so slot placement cannot be precomputed by a client
+    private long hash(String key) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,147 @@
+package au.edu.rmit.sept.webapp.bench;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import au.edu.rmit.sept.webapp.model.PhotoRendition;
+import au.edu.rmit.sept.webapp.model.PhotoSize;
+import au.edu.rmit.sept.webapp.service.LocalPhotoStorage;
+import au.edu.rmit.sept.webapp.service.PhotoDerivativeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Bytes saved and encode time of the derivative pipeline, per image. Uses a corpus
+ * directory of JPEG/PNG files if given, otherwise synthetic 12MP phone-style JPEGs.
+ * Not part of the normal build; run with
+ *
+ *   mvn test -Dtest=PhotoDerivativeBenchmark -Dbench=true [-Dbench.corpus=/path/to/photos -Dbench.images=8
+ *       -Dapp.photos.jpegQuality=0.82 -Dapp.photos.saveDataQuality=0.55]
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class PhotoDerivativeBenchmark {
+
+    private final String corpus = System.getProperty("bench.corpus");
+    private final int images = Integer.getInteger("bench.images", 8);
+    private final float quality = Float.parseFloat(System.getProperty("app.photos.jpegQuality", "0.82"));
+    private final float saveDataQuality = Float.parseFloat(System.getProperty("app.photos.saveDataQuality", "0.55"));
+
+    @Test
+    void recompressCorpus() throws Exception {
+        Path root = Files.createTempDirectory("bench-derivatives-");
+        LocalPhotoStorage storage = new LocalPhotoStorage(root.toString());
+        PhotoDerivativeService derivatives = new PhotoDerivativeService(storage, new SimpleMeterRegistry(), 1, 1,
+                quality, saveDataQuality);
+
+        List<Path> sources = corpus != null ? corpusFiles(Paths.get(corpus)) : synthesize(root.resolve("synthetic"));
+        System.out.printf(Locale.ROOT, "%-28s %10s %10s %10s %10s %10s %8s %9s%n",
+                "image", "orig KB", "full KB", "medium KB", "thumb KB", "lite KB", "saved", "encode ms");
+
+        long totalOriginal = 0;
+        long totalFull = 0;
+        long totalMillis = 0;
+        for (Path source : sources) {
+            boolean png = source.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".png");
+            String key = "bench/" + source.getFileName();
+            Path staged = storage.createStagingFile();
+            Files.copy(source, staged, StandardCopyOption.REPLACE_EXISTING);
+            storage.put(key, staged, png ? "image/png" : "image/jpeg");
+
+            long start = System.nanoTime();
+            if (!derivatives.generate(key, png ? "image/png" : "image/jpeg"))
+                throw new AssertionError("could not generate derivatives for " + source);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            long original = storage.size(key);
+            long full = smallest(storage, key, PhotoSize.FULL);
+            long medium = smallest(storage, key, PhotoSize.MEDIUM);
+            long thumb = smallest(storage, key, PhotoSize.THUMB);
+            long lite = storage.size(PhotoDerivativeService.variantKey(key, PhotoSize.FULL, PhotoRendition.LITE));
+            System.out.printf(Locale.ROOT, "%-28s %10d %10d %10d %10d %10d %7.1f%% %9d%n",
+                    source.getFileName(), original / 1024, full / 1024, medium / 1024, thumb / 1024,
+                    Math.max(0, lite) / 1024, 100.0 * (original - full) / original, millis);
+            totalOriginal += original;
+            totalFull += full;
+            totalMillis += millis;
+        }
+        System.out.printf(Locale.ROOT, "%d images: %d KB -> %d KB at full size (%.1f%% saved), %.0f ms/image (quality %.2f)%n",
+                sources.size(), totalOriginal / 1024, totalFull / 1024,
+                100.0 * (totalOriginal - totalFull) / Math.max(1, totalOriginal),
+                (double) totalMillis / Math.max(1, sources.size()), quality);
+    }
+
+    // what a client accepting everything would be sent (see PhotoApi negotiation)
+    private static long smallest(LocalPhotoStorage storage, String key, PhotoSize size) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (PhotoRendition r : new PhotoRendition[] { PhotoRendition.JPEG, PhotoRendition.PNG }) {
+            long n = storage.size(PhotoDerivativeService.variantKey(key, size, r));
+            if (n >= 0)
+                best = Math.min(best, n);
+        }
+        return best;
+    }
+
+    private static List<Path> corpusFiles(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).matches(".*\\.(jpe?g|png)$"))
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+        }
+    }
+
+    // smooth gradients plus sensor-like noise, saved at phone-camera quality
+    private List<Path> synthesize(Path dir) throws Exception {
+        Files.createDirectories(dir);
+        Random random = new Random(42);
+        List<Path> out = new ArrayList<>();
+        for (int i = 0; i < images; i++) {
+            BufferedImage img = new BufferedImage(4032, 3024, BufferedImage.TYPE_INT_RGB);
+            int hue = random.nextInt(256);
+            for (int y = 0; y < img.getHeight(); y++) {
+                for (int x = 0; x < img.getWidth(); x++) {
+                    int r = clamp((x * 255 / img.getWidth() + hue) % 256 + random.nextInt(9) - 4);
+                    int g = clamp(y * 255 / img.getHeight() + random.nextInt(9) - 4);
+                    int b = clamp(((x + y) / 32 + hue) % 256 + random.nextInt(9) - 4);
+                    img.setRGB(x, y, r << 16 | g << 8 | b);
+                }
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.95f);
+            try (ImageOutputStream ios = ImageIO.createImageOutputStream(bytes)) {
+                writer.setOutput(ios);
+                writer.write(null, new IIOImage(img, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Path file = dir.resolve(String.format(Locale.ROOT, "synthetic-%02d.jpg", i + 1));
+            Files.write(file, bytes.toByteArray());
+            out.add(file);
+        }
+        return out;
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+}
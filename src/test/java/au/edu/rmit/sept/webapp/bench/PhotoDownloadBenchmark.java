@@ -0,0 +1,131 @@
+package au.edu.rmit.sept.webapp.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Photo;
+import au.edu.rmit.sept.webapp.repository.EventRepository;
+import au.edu.rmit.sept.webapp.repository.PhotoRepository;
+
+/**
+ * Concurrent download benchmark for GET /api/photos/{id}/raw against a real Tomcat
+ * (so the sendfile path is exercised). Not part of the normal build; run with
+ *
+ *   mvn test -Dtest=PhotoDownloadBenchmark -Dbench=true [-Dbench.threads=32 -Dbench.seconds=10 -Dbench.photoKb=2048]
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class PhotoDownloadBenchmark {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    private final int threads = Integer.getInteger("bench.threads", 32);
+    private final int seconds = Integer.getInteger("bench.seconds", 10);
+    private final int photoKb = Integer.getInteger("bench.photoKb", 2048);
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private URI photoUri;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        photoRepository.deleteAll();
+
+        Event event = new Event();
+        event.setTitle("Benchmark Event");
+        event.setDescription("Photo download benchmark");
+        event.setStartTime(LocalDateTime.now().plusDays(1));
+        event.setLocation("Bench");
+        event.setCategory("Technology");
+        event.setOrganizerEmail("bench@rmit.edu.au");
+        event = eventRepository.save(event);
+
+        byte[] bytes = new byte[photoKb * 1024];
+        new Random(42).nextBytes(bytes);
+        Path file = Files.createTempFile("bench-photo-", ".jpg");
+        file.toFile().deleteOnExit();
+        Files.write(file, bytes);
+
+        Photo p = new Photo();
+        p.setEvent(event);
+        p.setOriginalFilename("bench.jpg");
+        p.setContentType("image/jpeg");
+        p.setSizeBytes(bytes.length);
+        p.setStoragePath(file.toString());
+        p = photoRepository.save(p);
+        photoUri = URI.create("http://localhost:" + port + "/api/photos/" + p.getId() + "/raw");
+    }
+
+    @Test
+    void concurrentDownloads() throws Exception {
+        HttpRequest full = HttpRequest.newBuilder(photoUri).GET().build();
+        HttpResponse<byte[]> first = client.send(full, HttpResponse.BodyHandlers.ofByteArray());
+        if (first.body().length != photoKb * 1024)
+            throw new IllegalStateException("short body: " + first.body().length);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        HttpRequest revalidate = HttpRequest.newBuilder(photoUri).header("If-None-Match", etag).GET().build();
+        HttpRequest range = HttpRequest.newBuilder(photoUri).header("Range", "bytes=0-65535").GET().build();
+
+        run("warm-up", () -> full);
+        run("full 200", () -> full);
+        run("range 206 (64KB)", () -> range);
+        run("revalidate 304", () -> revalidate);
+    }
+
+    private void run(String label, Supplier<HttpRequest> request) throws Exception {
+        AtomicLong requests = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpResponse<byte[]> res = client.send(request.get(), HttpResponse.BodyHandlers.ofByteArray());
+                        if (res.statusCode() >= 400)
+                            throw new IllegalStateException(label + ": HTTP " + res.statusCode());
+                        requests.incrementAndGet();
+                        bytes.addAndGet(res.body().length);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> w : workers)
+                w.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        System.out.printf("[bench] %-18s threads=%d  %8.0f req/s  %8.1f MB/s%n", label, threads,
+                requests.get() / (double) seconds, bytes.get() / (double) seconds / (1024 * 1024));
+    }
+}
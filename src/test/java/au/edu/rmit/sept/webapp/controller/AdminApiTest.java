@@ -1,17 +1,33 @@
 package au.edu.rmit.sept.webapp.controller;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -20,22 +36,35 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import au.edu.rmit.sept.webapp.model.ActivityBucket;
 import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.model.AuditLog;
 import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.ExportJob;
+import au.edu.rmit.sept.webapp.model.Feedback;
 import au.edu.rmit.sept.webapp.model.Rsvp;
 import au.edu.rmit.sept.webapp.model.RsvpStatus;
+import au.edu.rmit.sept.webapp.repository.ActivityBucketRepository;
 import au.edu.rmit.sept.webapp.repository.AuditLogRepository;
 import au.edu.rmit.sept.webapp.repository.EventRepository;
+import au.edu.rmit.sept.webapp.repository.EventStatsRepository;
+import au.edu.rmit.sept.webapp.repository.ExportJobRepository;
+import au.edu.rmit.sept.webapp.repository.FeedbackRepository;
 import au.edu.rmit.sept.webapp.repository.PhotoRepository;
 import au.edu.rmit.sept.webapp.repository.RsvpRepository;
 import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.service.AnalyticsRollupService;
+import au.edu.rmit.sept.webapp.service.ExportJobService;
+import au.edu.rmit.sept.webapp.service.PhotoStorage;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
 
 /**
@@ -57,12 +86,33 @@ class AdminApiTest {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private EventStatsRepository eventStatsRepository;
+
+    @Autowired
+    private ActivityBucketRepository activityBucketRepository;
+
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+
+    @Autowired
+    private ExportJobRepository exportJobRepository;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private PhotoStorage photoStorage;
+
     @Autowired
     private RsvpRepository rsvpRepository;
 
     @Autowired
     private PhotoRepository photoRepository;
 
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
     @Autowired
     private AuditLogRepository auditLogRepository;
 
@@ -169,6 +219,94 @@ class AdminApiTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void listUsers_WithPaging_ShouldReturnPageAndTotalCount() throws Exception {
+        mockMvc.perform(get("/api/admin/users")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("size", "2")
+                .param("page", "1")
+                .param("sort", "email,desc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].email").value("admin@rmit.edu.au"));
+    }
+
+    @Test
+    void listUsers_WithUnknownSort_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/admin/users")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("sort", "passwordHash"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchUsers_ByPrefix_ShouldMatchEmailOrName() throws Exception {
+        mockMvc.perform(get("/api/admin/users/search")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("q", "STU"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(jsonPath("$[0].email").value("student@rmit.edu.au"));
+
+        mockMvc.perform(get("/api/admin/users/search")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("q", "Test"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        // a prefix search, and wildcards are literal
+        mockMvc.perform(get("/api/admin/users/search")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("q", "%rmit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void searchUsers_ByRoleAndStatus_ShouldFilterInQuery() throws Exception {
+        studentUser.setBanned(true);
+        userRepository.save(studentUser);
+
+        mockMvc.perform(get("/api/admin/users/search")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("role", "organizer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].email").value("organizer@rmit.edu.au"));
+
+        mockMvc.perform(get("/api/admin/users/search")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("status", "banned"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].email").value("student@rmit.edu.au"));
+
+        mockMvc.perform(get("/api/admin/users/search")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("status", "active"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "2"));
+    }
+
+    @Test
+    void searchUsers_WithFields_ShouldOnlyReturnThoseFields() throws Exception {
+        String body = mockMvc.perform(get("/api/admin/users/search")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("fields", "id,email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode first = objectMapper.readTree(body).get(0);
+        assert first.size() == 2 && first.has("id") && first.has("email") : first;
+
+        mockMvc.perform(get("/api/admin/users/search")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("fields", "email,passwordHash"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void setUserActive_AsAdmin_ShouldDeactivateUser() throws Exception {
         Map<String, Object> body = new HashMap<>();
@@ -215,6 +353,26 @@ class AdminApiTest {
         assert updated.isBanned();
     }
 
+    @Test
+    void setUserBanned_AsAdmin_ShouldRevokeExistingTokens() throws Exception {
+        mockMvc.perform(get("/api/profile/me")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("banned", true);
+        mockMvc.perform(patch("/api/admin/users/" + studentUser.getId() + "/ban")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk());
+
+        // Token issued before the ban must stop working immediately
+        mockMvc.perform(get("/api/profile/me")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     void setUserRole_AsAdmin_ShouldChangeRole() throws Exception {
         Map<String, Object> body = new HashMap<>();
@@ -232,6 +390,44 @@ class AdminApiTest {
         assert "ORGANIZER".equals(updated.getRole());
     }
 
+    @Test
+    void setUserRole_AsAdmin_ShouldTakeEffectForEventCreation() throws Exception {
+        Map<String, Object> eventBody = new HashMap<>();
+        eventBody.put("title", "Promoted Event");
+        eventBody.put("startTime", LocalDateTime.now().plusDays(3).toString());
+        eventBody.put("location", "Test Location");
+        eventBody.put("category", "Technology");
+
+        // Student is rejected (and the principal is now cached)
+        mockMvc.perform(post("/api/events")
+                .header("Authorization", "Bearer " + studentToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(eventBody)))
+                .andExpect(status().isForbidden());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("role", "ORGANIZER");
+        mockMvc.perform(patch("/api/admin/users/" + studentUser.getId() + "/role")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk());
+
+        String promotedToken = JwtUtil.createToken(
+            studentUser.getEmail(),
+            "ORGANIZER",
+            "test-secret-key-for-testing-only",
+            3600
+        );
+
+        // Role change must not be hidden by the cached principal
+        mockMvc.perform(post("/api/events")
+                .header("Authorization", "Bearer " + promotedToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(eventBody)))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void setUserRole_WithInvalidRole_ShouldReturn400() throws Exception {
         Map<String, Object> body = new HashMap<>();
@@ -300,6 +496,87 @@ class AdminApiTest {
                 .andExpect(jsonPath("$", hasSize(greaterThan(0))));
     }
 
+    @Test
+    void listEventsForModeration_ShouldReturnExcerptRowsInsteadOfEntities() throws Exception {
+        testEvent.setDescription("x".repeat(500));
+        eventRepository.save(testEvent);
+
+        mockMvc.perform(get("/api/admin/events")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Test Event"))
+                .andExpect(jsonPath("$[0].excerpt").value("x".repeat(200)))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
+    @Test
+    void listEventsForModeration_WithFilters_ShouldMatchInQuery() throws Exception {
+        LocalDateTime base = LocalDateTime.now().plusDays(10).withNano(0);
+        Event music = createEvent("Jazz Night", organizerUser.getEmail(), "APPROVED");
+        music.setCategory("Music");
+        music.setStartTime(base);
+        eventRepository.save(music);
+        Event late = createEvent("Late 100% Jazz", organizerUser.getEmail(), "APPROVED");
+        late.setCategory("Music");
+        late.setStartTime(base.plusDays(30));
+        eventRepository.save(late);
+
+        mockMvc.perform(get("/api/admin/events")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("query", "JAZZ")
+                .param("category", "Music")
+                .param("from", base.minusDays(1).toString())
+                .param("to", base.plusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("Jazz Night"));
+
+        // wildcards in the query are literal
+        mockMvc.perform(get("/api/admin/events")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("query", "100%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("Late 100% Jazz"));
+    }
+
+    @Test
+    void listEventsForModeration_WithLimit_ShouldPageByCursor() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(5).withNano(0);
+        for (int i = 0; i < 4; i++) {
+            Event e = createEvent("Queued " + i, organizerUser.getEmail(), "PENDING");
+            e.setStartTime(start.plusHours(i / 2)); // pairs share a start time
+            eventRepository.save(e);
+        }
+
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var builder = get("/api/admin/events")
+                    .header("Authorization", "Bearer " + adminToken)
+                    .param("status", "PENDING")
+                    .param("limit", "2");
+            if (cursor != null)
+                builder.param("after", cursor);
+            var response = mockMvc.perform(builder)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            for (JsonNode row : objectMapper.readTree(response.getContentAsString()))
+                assert seen.add(row.get("id").asText()) : "row repeated across pages";
+            cursor = response.getHeader("X-Next-Cursor");
+            pages++;
+        } while (cursor != null);
+
+        assert seen.size() == 5 : seen; // four queued + the PENDING testEvent
+        assert pages == 3 : pages;
+
+        mockMvc.perform(get("/api/admin/events")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void listEventsForModeration_AsStudent_ShouldReturn403() throws Exception {
         mockMvc.perform(get("/api/admin/events")
@@ -378,6 +655,95 @@ class AdminApiTest {
         assert rsvpRepository.findByEventId(eventId).isEmpty();
     }
 
+    @Test
+    void bulkApprove_ShouldUpdateEveryEventAndReportMissingIds() throws Exception {
+        Event second = eventRepository.save(createEvent("Second Event", organizerUser.getEmail(), "PENDING"));
+        UUID missing = UUID.randomUUID();
+        Map<String, Object> body = Map.of("action", "approve",
+                "ids", List.of(testEvent.getId(), second.getId(), missing));
+
+        mockMvc.perform(post("/api/admin/events/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.done", hasSize(2)))
+                .andExpect(jsonPath("$.notFound[0]").value(missing.toString()));
+
+        assert "APPROVED".equals(eventRepository.findById(testEvent.getId()).orElseThrow().getApprovalStatus());
+        assert "APPROVED".equals(eventRepository.findById(second.getId()).orElseThrow().getApprovalStatus());
+        assert auditLogRepository.findAll().stream()
+                .filter(l -> "EVENT_APPROVE".equals(l.getAction()) && Boolean.TRUE.equals(l.getMeta().get("bulk")))
+                .count() == 2;
+    }
+
+    @Test
+    void bulkReject_ShouldStoreTheReason() throws Exception {
+        Map<String, Object> body = Map.of("action", "reject", "ids", List.of(testEvent.getId()),
+                "reason", "duplicate");
+
+        mockMvc.perform(post("/api/admin/events/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.done", hasSize(1)));
+
+        Event rejected = eventRepository.findById(testEvent.getId()).orElseThrow();
+        assert "REJECTED".equals(rejected.getApprovalStatus());
+        assert "duplicate".equals(rejected.getRejectionReason());
+    }
+
+    @Test
+    void bulkDelete_ShouldRemoveEventsWithTheirRowsAndRollups() throws Exception {
+        Event second = eventRepository.save(createEvent("Second Event", organizerUser.getEmail(), "APPROVED"));
+        Event kept = eventRepository.save(createEvent("Kept Event", organizerUser.getEmail(), "APPROVED"));
+        rsvpRepository.save(createRsvp(studentUser, testEvent, RsvpStatus.GOING));
+        rsvpRepository.save(createRsvp(studentUser, second, RsvpStatus.GOING));
+        rsvpRepository.save(createRsvp(adminUser, kept, RsvpStatus.GOING));
+        Feedback feedback = new Feedback();
+        feedback.setUser(studentUser);
+        feedback.setEvent(second);
+        feedback.setRating(4);
+        feedbackRepository.save(feedback);
+
+        Map<String, Object> body = Map.of("action", "delete", "ids", List.of(testEvent.getId(), second.getId()));
+        mockMvc.perform(post("/api/admin/events/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.done", hasSize(2)))
+                .andExpect(jsonPath("$.notFound", hasSize(0)));
+
+        assert eventRepository.findById(testEvent.getId()).isEmpty();
+        assert eventRepository.findById(second.getId()).isEmpty();
+        assert rsvpRepository.count() == 1;
+        assert feedbackRepository.count() == 0;
+        mockMvc.perform(get("/api/admin/analytics/organizer-leaderboard")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(jsonPath("$[0].eventsCreated").value(1))
+                .andExpect(jsonPath("$[0].totalRsvps").value(1));
+        mockMvc.perform(get("/api/admin/analytics/popular-events")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("Kept Event"));
+    }
+
+    @Test
+    void bulkEvents_WithUnknownActionOrNoIds_ShouldReturn400() throws Exception {
+        mockMvc.perform(post("/api/admin/events/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("action", "archive", "ids", List.of(testEvent.getId())))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/admin/events/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("action", "approve", "ids", List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void editEvent_AsAdmin_ShouldUpdateEventDetails() throws Exception {
         Map<String, Object> body = new HashMap<>();
@@ -412,6 +778,114 @@ class AdminApiTest {
                 .andExpect(status().isForbidden());
     }
 
+    // ==================== Data Export Tests ====================
+
+    @Test
+    void startExport_AsAdmin_ShouldWriteGzippedCsvOfAllRows() throws Exception {
+        rsvpRepository.save(createRsvp(studentUser, testEvent, RsvpStatus.GOING));
+        rsvpRepository.save(createRsvp(organizerUser, testEvent, RsvpStatus.INTERESTED));
+
+        JsonNode job = startExport("{\"dataset\":\"rsvps\",\"format\":\"csv\"}");
+        JsonNode done = awaitExport(job.get("id").asText());
+        assert done.get("rowCount").asLong() == 2 : done;
+
+        byte[] file = mockMvc.perform(get(done.get("downloadUrl").asText())
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", containsString(".csv.gz")))
+                .andReturn().getResponse().getContentAsByteArray();
+        String[] lines = gunzip(file).split("\n");
+        assert lines.length == 3;
+        assert lines[0].equals("id,userId,eventId,status,createdAt,updatedAt") : lines[0];
+        assert String.join("\n", lines).contains(studentUser.getId() + "," + testEvent.getId() + ",GOING");
+    }
+
+    @Test
+    void startExport_Ndjson_ShouldPageThroughEveryRow() throws Exception {
+        for (int i = 0; i < 5; i++)
+            eventRepository.save(createEvent("Event " + i, organizerUser.getEmail(), "APPROVED"));
+
+        JsonNode job = startExport("{\"dataset\":\"EVENTS\",\"format\":\"NDJSON\"}");
+        JsonNode done = awaitExport(job.get("id").asText());
+
+        byte[] file = mockMvc.perform(get("/api/admin/exports/" + job.get("id").asText() + "/file")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        Set<String> ids = new HashSet<>();
+        for (String line : gunzip(file).split("\n"))
+            ids.add(objectMapper.readTree(line).get("id").asText());
+        // test profile reads two rows per chunk, so six events take several keyset pages
+        assert ids.size() == 6 && done.get("rowCount").asLong() == 6 : done;
+        assert ids.contains(testEvent.getId().toString());
+    }
+
+    @Test
+    void startExport_WithUnknownDataset_ShouldReturn400() throws Exception {
+        mockMvc.perform(post("/api/admin/exports")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"dataset\":\"passwords\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void startExport_AsStudent_ShouldReturn403() throws Exception {
+        mockMvc.perform(post("/api/admin/exports")
+                .header("Authorization", "Bearer " + studentToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"dataset\":\"EVENTS\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void exportHeartbeat_ShouldFailOnlyJobsWhoseInstanceStopped() throws Exception {
+        // another instance's running job, still heartbeating, and one from an instance that died
+        ExportJob alive = runningJob(Instant.now().minusSeconds(10));
+        ExportJob abandoned = runningJob(Instant.now().minus(Duration.ofHours(1)));
+
+        exportJobService.heartbeat();
+
+        assert exportJobRepository.findById(alive.getId()).orElseThrow().getStatus() == ExportJob.Status.RUNNING;
+        ExportJob failed = exportJobRepository.findById(abandoned.getId()).orElseThrow();
+        assert failed.getStatus() == ExportJob.Status.FAILED && failed.getFinishedAt() != null : failed.getStatus();
+    }
+
+    @Test
+    void exportHeartbeat_FailedJob_ShouldNotBeOverwrittenByItsSlowRunner() {
+        ExportJob slow = runningJob(Instant.now().minus(Duration.ofHours(1)));
+        exportJobService.heartbeat();
+
+        // the instance running it was only slow and now saves its finished copy
+        slow.setStatus(ExportJob.Status.DONE);
+        try {
+            exportJobRepository.save(slow);
+            throw new AssertionError("late save overwrote the failed status");
+        } catch (ObjectOptimisticLockingFailureException expected) {
+            // the failed verdict stands
+        }
+        assert exportJobRepository.findById(slow.getId()).orElseThrow().getStatus() == ExportJob.Status.FAILED;
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteTheStoredFileWithItsJob() throws Exception {
+        String id = awaitExport(startExport("{\"dataset\":\"EVENTS\"}").get("id").asText()).get("id").asText();
+        ExportJob job = exportJobRepository.findById(UUID.fromString(id)).orElseThrow();
+        // kept in the shared store, where any instance can serve it
+        assert photoStorage.size(ExportJobService.key(job)) > 0;
+
+        job.setFinishedAt(Instant.now().minus(Duration.ofDays(2)));
+        exportJobRepository.save(job);
+        exportJobService.purgeExpired();
+
+        assert photoStorage.size(ExportJobService.key(job)) == -1;
+        assert exportJobRepository.findById(job.getId()).isEmpty();
+        mockMvc.perform(get("/api/admin/exports/" + id + "/file")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNotFound());
+    }
+
     // ==================== Analytics Tests ====================
 
     @Test
@@ -452,6 +926,130 @@ class AdminApiTest {
                 .andExpect(jsonPath("$[0].rsvpCount").exists());
     }
 
+    @Test
+    void analyticsRollups_ShouldFollowRsvpAndEventWrites() throws Exception {
+        testEvent.setApprovalStatus("APPROVED");
+        eventRepository.save(testEvent);
+        Event event2 = eventRepository.save(createEvent("Event 2", organizerUser.getEmail(), "APPROVED"));
+        rsvpRepository.save(createRsvp(studentUser, testEvent, RsvpStatus.GOING));
+        rsvpRepository.save(createRsvp(adminUser, testEvent, RsvpStatus.INTERESTED));
+        rsvpRepository.save(createRsvp(studentUser, event2, RsvpStatus.GOING));
+
+        mockMvc.perform(get("/api/admin/analytics/popular-events")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].title").value("Test Event"))
+                .andExpect(jsonPath("$[0].rsvpCount").value(2))
+                .andExpect(jsonPath("$[1].rsvpCount").value(1));
+        mockMvc.perform(get("/api/admin/analytics/organizer-leaderboard")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Test Organizer"))
+                .andExpect(jsonPath("$[0].eventsCreated").value(2))
+                .andExpect(jsonPath("$[0].totalRsvps").value(3));
+
+        mockMvc.perform(delete("/api/admin/events/" + testEvent.getId())
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/admin/analytics/popular-events")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("Event 2"));
+        mockMvc.perform(get("/api/admin/analytics/organizer-leaderboard")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(jsonPath("$[0].eventsCreated").value(1))
+                .andExpect(jsonPath("$[0].totalRsvps").value(1));
+    }
+
+    @Test
+    void rebuildRollups_ShouldRecomputeFromSourceTables() throws Exception {
+        rsvpRepository.save(createRsvp(studentUser, testEvent, RsvpStatus.GOING));
+        eventStatsRepository.deleteAll(); // drift
+
+        mockMvc.perform(post("/api/admin/analytics/rollups/rebuild")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events").value(1))
+                .andExpect(jsonPath("$.organizers").value(1))
+                .andExpect(jsonPath("$.buckets").value(greaterThan(0)));
+
+        mockMvc.perform(get("/api/admin/analytics/organizer-leaderboard")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(jsonPath("$[0].eventsCreated").value(1))
+                .andExpect(jsonPath("$[0].totalRsvps").value(1));
+        assert auditLogRepository.findAll().stream().anyMatch(l -> "ANALYTICS_REBUILD".equals(l.getAction()));
+    }
+
+    @Test
+    void activityBackfill_ShouldRunOnlyOnce() throws Exception {
+        ApplicationReadyEvent ready = new ApplicationReadyEvent(new SpringApplication(), new String[0],
+                (ConfigurableApplicationContext) webApplicationContext, Duration.ZERO);
+        webApplicationContext.publishEvent(ready); // existing users and events, no buckets: build them
+
+        // totals below the source counts, as when older events have no createdAt to bucket them by
+        activityBucketRepository.deleteAll(activityBucketRepository.findAll().stream()
+                .filter(b -> "events".equals(b.getId().getMetric())).toList());
+        webApplicationContext.publishEvent(ready);
+
+        assert activityBucketRepository.findAll().stream().noneMatch(b -> "events".equals(b.getId().getMetric()));
+    }
+
+    @Test
+    void timeseries_ShouldCountNewRsvpsPerDayIncludingCompactedHistory() throws Exception {
+        activityBucketRepository.deleteAll();
+        rsvpRepository.save(createRsvp(studentUser, testEvent, RsvpStatus.GOING));
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate monthAgo = today.minusDays(30);
+        activityBucketRepository.save(new ActivityBucket("rsvps",
+                monthAgo.atTime(9, 0).toInstant(ZoneOffset.UTC), "HOUR", 2));
+        activityBucketRepository.save(new ActivityBucket("rsvps",
+                monthAgo.atTime(15, 0).toInstant(ZoneOffset.UTC), "HOUR", 3));
+
+        assert analyticsRollupService.compact() == 2;
+        assert activityBucketRepository.findAll().stream()
+                .filter(b -> "DAY".equals(b.getWidth()))
+                .allMatch(b -> b.getTotal() == 5 && b.getId().getBucketStart().equals(monthAgo.atStartOfDay(ZoneOffset.UTC).toInstant()));
+
+        mockMvc.perform(get("/api/admin/analytics/timeseries")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("metric", "rsvps")
+                .param("from", monthAgo.toString())
+                .param("to", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(31)))
+                .andExpect(jsonPath("$[0].start").value(monthAgo.toString()))
+                .andExpect(jsonPath("$[0].count").value(5))
+                .andExpect(jsonPath("$[1].count").value(0))
+                .andExpect(jsonPath("$[30].count").value(1));
+
+        JsonNode weeks = objectMapper.readTree(mockMvc.perform(get("/api/admin/analytics/timeseries")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("metric", "rsvps")
+                .param("bucket", "week")
+                .param("from", monthAgo.toString())
+                .param("to", today.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        long total = 0;
+        for (JsonNode w : weeks) {
+            assert LocalDate.parse(w.get("start").asText()).getDayOfWeek() == DayOfWeek.MONDAY;
+            total += w.get("count").asLong();
+        }
+        assert total == 6 : weeks;
+
+        mockMvc.perform(get("/api/admin/analytics/timeseries")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("metric", "photos"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/analytics/timeseries")
+                .header("Authorization", "Bearer " + studentToken)
+                .param("metric", "rsvps"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void getRecentActivity_AsAdmin_ShouldReturnAuditLogs() throws Exception {
         // Perform some actions to create audit logs
@@ -470,6 +1068,82 @@ class AdminApiTest {
                 .andExpect(jsonPath("$[0].action").exists());
     }
 
+    @Test
+    void auditLog_WithFilters_ShouldReturnMatchingEntriesWithStructuredMeta() throws Exception {
+        mockMvc.perform(post("/api/admin/events/" + testEvent.getId() + "/reject")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("reason", "Says \"no\", sorry"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/admin/users/" + studentUser.getId() + "/ban")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("banned", true))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/admin/audit")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("action", "event_reject"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].subjectId").value(testEvent.getId().toString()))
+                .andExpect(jsonPath("$[0].meta.reason").value("Says \"no\", sorry"));
+
+        mockMvc.perform(get("/api/admin/audit")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("subjectId", studentUser.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].action").value("USER_BAN"))
+                .andExpect(jsonPath("$[0].meta.banned").value(true));
+
+        // newest first
+        mockMvc.perform(get("/api/admin/audit")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("actorUserId", adminUser.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].action").value("USER_BAN"));
+    }
+
+    @Test
+    void auditLog_WithLimit_ShouldPageByCursor() throws Exception {
+        java.time.Instant ts = java.time.Instant.now();
+        for (int i = 0; i < 5; i++) {
+            AuditLog entry = new AuditLog();
+            entry.setTs(ts.minusSeconds(i / 2)); // pairs share a timestamp
+            entry.setActorUserId(adminUser.getId());
+            entry.setAction("TEST");
+            auditLogRepository.save(entry);
+        }
+
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var builder = get("/api/admin/audit")
+                    .header("Authorization", "Bearer " + adminToken)
+                    .param("limit", "2");
+            if (cursor != null)
+                builder.param("after", cursor);
+            var response = mockMvc.perform(builder)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            for (JsonNode row : objectMapper.readTree(response.getContentAsString()))
+                assert seen.add(row.get("id").asText()) : "entry repeated across pages";
+            cursor = response.getHeader("X-Next-Cursor");
+            pages++;
+        } while (cursor != null);
+
+        assert seen.size() == 5 : seen;
+        assert pages == 3 : pages;
+
+        mockMvc.perform(get("/api/admin/audit")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("after", "bm9wZQ"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getOrganizerLeaderboard_AsAdmin_ShouldReturnOrganizerStats() throws Exception {
         // Create more events and RSVPs
@@ -538,6 +1212,49 @@ class AdminApiTest {
 
     // ==================== Helper Methods ====================
 
+    private ExportJob runningJob(Instant heartbeatAt) {
+        ExportJob job = new ExportJob();
+        job.setDataset(ExportJob.Dataset.EVENTS);
+        job.setFormat(ExportJob.Format.CSV);
+        job.setRequestedBy(adminUser.getId());
+        job.setStatus(ExportJob.Status.RUNNING);
+        job.setStartedAt(heartbeatAt);
+        job.setHeartbeatAt(heartbeatAt);
+        return exportJobRepository.save(job);
+    }
+
+    private JsonNode startExport(String body) throws Exception {
+        String json = mockMvc.perform(post("/api/admin/exports")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json);
+    }
+
+    private JsonNode awaitExport(String id) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            JsonNode job = objectMapper.readTree(mockMvc.perform(get("/api/admin/exports/" + id)
+                    .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            String status = job.get("status").asText();
+            if (status.equals("DONE"))
+                return job;
+            assert !status.equals("FAILED") : job;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("export " + id + " did not finish");
+    }
+
+    private static String gunzip(byte[] data) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
     private Event createEvent(String title, String organizerEmail, String approvalStatus) {
         Event event = new Event();
         event.setTitle(title);
@@ -9,6 +9,7 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -16,7 +17,10 @@ import org.springframework.web.context.WebApplicationContext;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
 import au.edu.rmit.sept.webapp.dto.AuthDtos;
+import au.edu.rmit.sept.webapp.model.AppUser;
 import au.edu.rmit.sept.webapp.repository.EventRepository;
 import au.edu.rmit.sept.webapp.repository.RsvpRepository;
 import au.edu.rmit.sept.webapp.repository.UserRepository;
@@ -187,6 +191,82 @@ class AuthApiTest {
                 .andExpect(jsonPath("$.user.name").value("Login User"));
     }
 
+    @Test
+    void loginWithOutdatedHashCost_ShouldRehashWithConfiguredCost() throws Exception {
+        AppUser user = new AppUser();
+        user.setEmail("legacy@rmit.edu.au");
+        user.setName("Legacy User");
+        user.setPasswordHash(BCrypt.hashpw("password123", BCrypt.gensalt(4)));
+        userRepository.save(user);
+
+        AuthDtos.LoginRequest loginRequest = new AuthDtos.LoginRequest();
+        loginRequest.email = "legacy@rmit.edu.au";
+        loginRequest.password = "password123";
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk());
+
+        String rehashed = userRepository.findByEmail("legacy@rmit.edu.au").orElseThrow().getPasswordHash();
+        assert rehashed.startsWith("$2a$10$");
+        assert BCrypt.checkpw("password123", rehashed);
+    }
+
+    @Test
+    void loginRepeatedlyForSameAccount_ShouldReturn429WhenBucketIsEmpty() throws Exception {
+        AuthDtos.LoginRequest loginRequest = new AuthDtos.LoginRequest();
+        loginRequest.email = "target@rmit.edu.au";
+        loginRequest.password = "guess";
+
+        // Default auth bucket holds 10 attempts
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(header().exists("RateLimit-Remaining"));
+        }
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("RateLimit-Remaining", "0"))
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    void loginFromClientsBehindTheProxy_ShouldUseSeparateIpBuckets() throws Exception {
+        // a different account each time, so only the IP bucket fills up
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(post("/api/auth/login")
+                    .header("X-Forwarded-For", "203.0.113.7")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(login("user" + i + "@rmit.edu.au"))))
+                    .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(post("/api/auth/login")
+                .header("X-Forwarded-For", "203.0.113.7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(login("another@rmit.edu.au"))))
+                .andExpect(status().isTooManyRequests());
+
+        // another client through the same ingress still has its own bucket
+        mockMvc.perform(post("/api/auth/login")
+                .header("X-Forwarded-For", "198.51.100.20, 10.0.3.4")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(login("another@rmit.edu.au"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static AuthDtos.LoginRequest login(String email) {
+        AuthDtos.LoginRequest loginRequest = new AuthDtos.LoginRequest();
+        loginRequest.email = email;
+        loginRequest.password = "guess";
+        return loginRequest;
+    }
+
     @Test
     void loginWithInvalidPassword_ShouldReturn401() throws Exception {
         // Register user first
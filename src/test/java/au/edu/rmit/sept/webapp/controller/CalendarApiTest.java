@@ -0,0 +1,221 @@
+package au.edu.rmit.sept.webapp.controller;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Rsvp;
+import au.edu.rmit.sept.webapp.model.RsvpStatus;
+import au.edu.rmit.sept.webapp.repository.EventRepository;
+import au.edu.rmit.sept.webapp.repository.RsvpRepository;
+import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.util.JwtUtil;
+
+/**
+ * Integration tests for the iCalendar feeds
+ * Tests rendering, conditional requests and cache invalidation on writes
+ * Uses MySQL test database (eventsdb_test) configured via application-test.properties
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class CalendarApiTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+    private AppUser student;
+    private String studentToken;
+    private Event techEvent;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        // Clean up database in proper order to avoid foreign key violations
+        rsvpRepository.deleteAll();
+        eventRepository.deleteAll();
+        userRepository.deleteAll();
+
+        student = new AppUser();
+        student.setEmail("student@rmit.edu.au");
+        student.setName("Test Student");
+        student.setRole("STUDENT");
+        student.setPasswordHash("dummy-hash");
+        student = userRepository.save(student);
+
+        studentToken = JwtUtil.createToken(
+            student.getEmail(),
+            student.getRole(),
+            "test-secret-key-for-testing-only",
+            3600
+        );
+
+        techEvent = eventRepository.save(createEvent("Hackathon; day 1, part \"A\"", "Technology", "APPROVED"));
+        eventRepository.save(createEvent("Jazz Night", "Music", "APPROVED"));
+        eventRepository.save(createEvent("Secret Party", "Music", "PENDING"));
+    }
+
+    // ==================== Public Feed Tests ====================
+
+    @Test
+    void eventsFeed_ShouldListApprovedEventsAsICalendar() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/calendar/events.ics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("text/calendar")))
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn();
+
+        String ics = result.getResponse().getContentAsString();
+        assert ics.startsWith("BEGIN:VCALENDAR\r\n") && ics.endsWith("END:VCALENDAR\r\n");
+        assert ics.contains("UID:" + techEvent.getId() + "@rmit-events\r\n");
+        assert ics.contains("SUMMARY:Hackathon\\; day 1\\, part \"A\"\r\n") : ics;
+        assert ics.contains("SUMMARY:Jazz Night");
+        assert !ics.contains("Secret Party");
+    }
+
+    @Test
+    void eventsFeedWithCategory_ShouldOnlyListThatCategory() throws Exception {
+        mockMvc.perform(get("/api/calendar/events.ics").param("category", "music"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Jazz Night")))
+                .andExpect(content().string(not(containsString("Hackathon"))));
+    }
+
+    @Test
+    void eventsFeedWithMatchingEtag_ShouldReturn304UntilAnEventChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/calendar/events.ics"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/calendar/events.ics").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        techEvent.setTitle("Hackathon (moved)");
+        eventRepository.save(techEvent);
+
+        mockMvc.perform(get("/api/calendar/events.ics").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(content().string(containsString("Hackathon (moved)")));
+    }
+
+    // ==================== Personal Feed Tests ====================
+
+    @Test
+    void myFeed_ShouldFollowTheUsersRsvps() throws Exception {
+        String link = objectMapper.readTree(mockMvc.perform(get("/api/calendar/my-link")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("url").asText();
+
+        mockMvc.perform(get(link))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString("BEGIN:VEVENT"))));
+
+        Rsvp rsvp = new Rsvp();
+        rsvp.setUser(student);
+        rsvp.setEvent(techEvent);
+        rsvp.setStatus(RsvpStatus.INTERESTED);
+        rsvpRepository.save(rsvp);
+
+        mockMvc.perform(get(link))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("UID:" + techEvent.getId())))
+                .andExpect(content().string(containsString("STATUS:TENTATIVE")))
+                .andExpect(header().string("Cache-Control", containsString("private")));
+    }
+
+    @Test
+    void regenerateLink_ShouldRevokeTheOldLink() throws Exception {
+        String oldLink = myLink();
+        mockMvc.perform(get(oldLink)).andExpect(status().isOk());
+
+        String newLink = objectMapper.readTree(mockMvc.perform(post("/api/calendar/my-link")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("url").asText();
+
+        assert !newLink.equals(oldLink);
+        mockMvc.perform(get(oldLink)).andExpect(status().isNotFound());
+        mockMvc.perform(get(newLink)).andExpect(status().isOk());
+        assert myLink().equals(newLink);
+    }
+
+    @Test
+    void myFeed_OfBannedUser_ShouldReturn404() throws Exception {
+        String link = myLink();
+        mockMvc.perform(get(link)).andExpect(status().isOk());
+
+        student.setBanned(true);
+        userRepository.save(student);
+
+        mockMvc.perform(get(link)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void myFeedWithForgedToken_ShouldReturn404() throws Exception {
+        mockMvc.perform(get("/api/calendar/my.ics").param("token", student.getId() + ".AAAAAAAAAAAAAAAAAAAAAA"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void myLink_WithoutAuthentication_ShouldReturn401() throws Exception {
+        mockMvc.perform(get("/api/calendar/my-link"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    // ==================== Helper Methods ====================
+
+    private String myLink() throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get("/api/calendar/my-link")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("url").asText();
+    }
+
+    private static Event createEvent(String title, String category, String approvalStatus) {
+        Event event = new Event();
+        event.setTitle(title);
+        event.setDescription("Test description for " + title);
+        event.setStartTime(LocalDateTime.now().plusDays(1));
+        event.setLocation("Test Location");
+        event.setCategory(category);
+        event.setOrganizerEmail("organizer@rmit.edu.au");
+        event.setApprovalStatus(approvalStatus);
+        return event;
+    }
+}
@@ -26,7 +26,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import au.edu.rmit.sept.webapp.dto.EventDto;
 import au.edu.rmit.sept.webapp.model.AppUser;
 import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Feedback;
+import au.edu.rmit.sept.webapp.model.Rsvp;
+import au.edu.rmit.sept.webapp.model.RsvpStatus;
 import au.edu.rmit.sept.webapp.repository.EventRepository;
+import au.edu.rmit.sept.webapp.repository.FeedbackRepository;
 import au.edu.rmit.sept.webapp.repository.RsvpRepository;
 import au.edu.rmit.sept.webapp.repository.UserRepository;
 import au.edu.rmit.sept.webapp.util.JwtUtil;
@@ -53,6 +57,9 @@ class EventApiTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -341,6 +348,38 @@ class EventApiTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void deleteEvent_WithRsvpsAndFeedback_ShouldDeleteThemByEvent() throws Exception {
+        Event event = eventRepository.save(createTestEvent("Busy Event", "Technology"));
+        Event other = eventRepository.save(createTestEvent("Other Event", "Technology"));
+        for (AppUser u : new AppUser[] { testUser, otherUser }) {
+            Rsvp rsvp = new Rsvp();
+            rsvp.setUser(u);
+            rsvp.setEvent(event);
+            rsvp.setStatus(RsvpStatus.GOING);
+            rsvpRepository.save(rsvp);
+        }
+        Rsvp kept = new Rsvp();
+        kept.setUser(otherUser);
+        kept.setEvent(other);
+        kept.setStatus(RsvpStatus.GOING);
+        rsvpRepository.save(kept);
+        Feedback feedback = new Feedback();
+        feedback.setUser(otherUser);
+        feedback.setEvent(event);
+        feedback.setRating(5);
+        feedbackRepository.save(feedback);
+
+        mockMvc.perform(delete("/api/events/" + event.getId())
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNoContent());
+
+        assert eventRepository.findById(event.getId()).isEmpty();
+        assert rsvpRepository.findByEventId(event.getId()).isEmpty();
+        assert rsvpRepository.findByEventId(other.getId()).size() == 1;
+        assert feedbackRepository.count() == 0;
+    }
+
     @Test
     void deleteEvent_WithoutAuthentication_ShouldReturn401() throws Exception {
         Event event = createTestEvent("Test Event", "Technology");
@@ -0,0 +1,147 @@
+package au.edu.rmit.sept.webapp.controller;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Rsvp;
+import au.edu.rmit.sept.webapp.model.RsvpStatus;
+import au.edu.rmit.sept.webapp.repository.EventRepository;
+import au.edu.rmit.sept.webapp.repository.RsvpRepository;
+import au.edu.rmit.sept.webapp.repository.UserRepository;
+
+/**
+ * Integration tests for the attendee CSV export
+ * Uses MySQL test database (eventsdb_test) configured via application-test.properties
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ExportApiTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private MockMvc mockMvc;
+    private Event testEvent;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        // Clean up database in proper order to avoid foreign key violations
+        rsvpRepository.deleteAll();
+        eventRepository.deleteAll();
+        userRepository.deleteAll();
+
+        testEvent = new Event();
+        testEvent.setTitle("Export Event");
+        testEvent.setDescription("Event with attendees");
+        testEvent.setStartTime(LocalDateTime.now().plusDays(1));
+        testEvent.setLocation("Test Location");
+        testEvent.setCategory("Technology");
+        testEvent.setOrganizerEmail("organizer@rmit.edu.au");
+        testEvent = eventRepository.save(testEvent);
+    }
+
+    @Test
+    void export_ShouldStreamCsvWithRfc4180Escaping() throws Exception {
+        rsvp("plain@rmit.edu.au", "Plain Name", RsvpStatus.GOING);
+        rsvp("quoted@rmit.edu.au", "Smith, \"Jo\"", RsvpStatus.INTERESTED);
+
+        MvcResult result = export(null);
+
+        String csv = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assert csv.startsWith("Name,Email,RSVP Status\n") : csv;
+        assert csv.contains("Plain Name,plain@rmit.edu.au,GOING\n") : csv;
+        assert csv.contains("\"Smith, \"\"Jo\"\"\",quoted@rmit.edu.au,INTERESTED\n") : csv;
+        assert result.getResponse().getHeader("Content-Encoding") == null;
+        assert result.getResponse().getHeader("Content-Disposition").contains("attendees-export-event.csv");
+    }
+
+    @Test
+    void exportAcceptingGzip_ShouldCompressTheSameCsv() throws Exception {
+        rsvp("plain@rmit.edu.au", "Plain Name", RsvpStatus.GOING);
+        String plain = export(null).getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        MvcResult result = export("gzip, deflate, br");
+
+        assert "gzip".equals(result.getResponse().getHeader("Content-Encoding"));
+        byte[] zipped = result.getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(zipped))) {
+            assert plain.equals(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assert export("gzip;q=0").getResponse().getHeader("Content-Encoding") == null;
+    }
+
+    @Test
+    void exportWithoutRsvps_ShouldReturn204() throws Exception {
+        mockMvc.perform(get("/api/events/" + testEvent.getId() + "/attendees/export"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void exportForUnknownEvent_ShouldReturn404() throws Exception {
+        mockMvc.perform(get("/api/events/00000000-0000-0000-0000-000000000000/attendees/export"))
+                .andExpect(status().isNotFound());
+    }
+
+    // ==================== Helper Methods ====================
+
+    private MvcResult export(String acceptEncoding) throws Exception {
+        MockHttpServletRequestBuilder exportRequest = get("/api/events/" + testEvent.getId() + "/attendees/export");
+        if (acceptEncoding != null)
+            exportRequest.header("Accept-Encoding", acceptEncoding);
+        MvcResult started = mockMvc.perform(exportRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andReturn();
+    }
+
+    private void rsvp(String email, String name, RsvpStatus status) {
+        AppUser user = new AppUser();
+        user.setEmail(email);
+        user.setName(name);
+        user.setRole("STUDENT");
+        user.setPasswordHash("dummy-hash");
+        user = userRepository.save(user);
+
+        Rsvp rsvp = new Rsvp();
+        rsvp.setUser(user);
+        rsvp.setEvent(testEvent);
+        rsvp.setStatus(status);
+        rsvpRepository.save(rsvp);
+    }
+}
@@ -0,0 +1,721 @@
+package au.edu.rmit.sept.webapp.controller;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.imageio.ImageIO;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import au.edu.rmit.sept.webapp.model.AppUser;
+import au.edu.rmit.sept.webapp.model.Event;
+import au.edu.rmit.sept.webapp.model.Photo;
+import au.edu.rmit.sept.webapp.repository.PhotoBlobRepository;
+import au.edu.rmit.sept.webapp.repository.PhotoDeletionRepository;
+import au.edu.rmit.sept.webapp.repository.EventRepository;
+import au.edu.rmit.sept.webapp.repository.PhotoRepository;
+import au.edu.rmit.sept.webapp.repository.RsvpRepository;
+import au.edu.rmit.sept.webapp.repository.UserRepository;
+import au.edu.rmit.sept.webapp.service.PhotoHashBackfillService;
+import au.edu.rmit.sept.webapp.service.PhotoReaperService;
+import au.edu.rmit.sept.webapp.util.JwtUtil;
+
+/**
+ * Integration tests for Photo API endpoints
+ * Tests upload, derivative generation and raw serving
+ * Uses MySQL test database (eventsdb_test) configured via application-test.properties
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class PhotoApiTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private PhotoBlobRepository photoBlobRepository;
+
+    @Autowired
+    private PhotoDeletionRepository photoDeletionRepository;
+
+    @Autowired
+    private PhotoReaperService photoReaper;
+
+    @Autowired
+    private PhotoHashBackfillService photoHashBackfill;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+    private String organizerToken;
+    private Event testEvent;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        // Clean up database in proper order to avoid foreign key violations
+        photoRepository.deleteAll();
+        rsvpRepository.deleteAll();
+        eventRepository.deleteAll();
+        userRepository.deleteAll();
+
+        AppUser organizer = new AppUser();
+        organizer.setEmail("organizer@rmit.edu.au");
+        organizer.setName("Test Organizer");
+        organizer.setRole("ORGANIZER");
+        organizer.setPasswordHash("dummy-hash");
+        organizer = userRepository.save(organizer);
+
+        organizerToken = JwtUtil.createToken(
+            organizer.getEmail(),
+            organizer.getRole(),
+            "test-secret-key-for-testing-only",
+            3600
+        );
+
+        testEvent = new Event();
+        testEvent.setTitle("Photo Event");
+        testEvent.setDescription("Event with a gallery");
+        testEvent.setStartTime(LocalDateTime.now().plusDays(1));
+        testEvent.setLocation("Test Location");
+        testEvent.setCategory("Technology");
+        testEvent.setOrganizerEmail(organizer.getEmail());
+        testEvent = eventRepository.save(testEvent);
+    }
+
+    // ==================== Upload Tests ====================
+
+    @Test
+    void uploadPhoto_AsOrganizer_ShouldListVariantUrls() throws Exception {
+        mockMvc.perform(photoUpload(testEvent, png(800, 600))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].variants.thumb").exists())
+                .andExpect(jsonPath("$[0].variants.medium").exists())
+                .andExpect(jsonPath("$[0].variants.full").exists());
+    }
+
+    @Test
+    void rawWithThumbSize_ShouldServeDownscaledVariantOnceGenerated() throws Exception {
+        String thumbUrl = uploadAndGetVariant("thumb", 1200, 900);
+
+        MvcResult result = awaitVariant(thumbUrl);
+        BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assert thumb.getWidth() == 256;
+        assert thumb.getHeight() == 192;
+    }
+
+    @Test
+    void rawWithSize_WhenOriginalCannotBeDecoded_ShouldServeTheOriginal() throws Exception {
+        byte[] corrupt = Arrays.copyOf(png(400, 300), 60); // valid signature, truncated body
+        MvcResult upload = mockMvc.perform(photoUpload(testEvent, corrupt)
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        String thumbUrl = objectMapper.readTree(upload.getResponse().getContentAsString())
+                .get(0).get("variants").get("thumb").asText();
+
+        MvcResult result = awaitVariant(thumbUrl);
+        assert Arrays.equals(result.getResponse().getContentAsByteArray(), corrupt);
+        assert "image/png".equals(result.getResponse().getContentType());
+    }
+
+    @Test
+    void rawWithSize_ShouldServeUprightProgressiveJpegWithoutExif() throws Exception {
+        // 400x200 sensor image that the camera tagged "rotate 90 degrees clockwise"
+        MvcResult upload = mockMvc.perform(multipartRequest(testEvent, "image/jpeg", withExifOrientation(jpeg(400, 200), 6))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        String thumbUrl = objectMapper.readTree(upload.getResponse().getContentAsString())
+                .get(0).get("variants").get("thumb").asText();
+
+        MvcResult result = awaitVariant(get(thumbUrl).header("Accept", "image/jpeg"));
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assert "image/jpeg".equals(result.getResponse().getContentType());
+        assert String.join(",", result.getResponse().getHeaders("Vary")).contains("Save-Data");
+        BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(body));
+        assert thumb.getWidth() == 128 && thumb.getHeight() == 256;
+        assert indexOf(body, new byte[] { (byte) 0xFF, (byte) 0xC2 }) >= 0; // progressive SOF
+        assert indexOf(body, "Exif".getBytes(StandardCharsets.ISO_8859_1)) < 0;
+    }
+
+    @Test
+    void rawWithSaveData_ShouldServeSmallerRendition() throws Exception {
+        String mediumUrl = uploadNoisy("medium");
+        MvcResult normal = awaitVariant(get(mediumUrl).header("Accept", "image/jpeg"));
+        // the lite JPEG is written before the normal one, so it is ready too
+
+        MvcResult lite = mockMvc.perform(get(mediumUrl).header("Accept", "image/jpeg").header("Save-Data", "on"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andReturn();
+        assert lite.getResponse().getContentAsByteArray().length < normal.getResponse().getContentAsByteArray().length;
+        assert !lite.getResponse().getHeader("ETag").equals(normal.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    void rawWithUnsupportedAccept_ShouldReturn406() throws Exception {
+        MvcResult upload = mockMvc.perform(multipartRequest(testEvent, "image/jpeg", jpeg(100, 100))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        String thumbUrl = objectMapper.readTree(upload.getResponse().getContentAsString())
+                .get(0).get("variants").get("thumb").asText();
+        awaitVariant(get(thumbUrl));
+
+        // placeholders are served (200) until the generation task has fully finished
+        int status = 200;
+        for (int i = 0; i < 50 && status == 200; i++) {
+            status = mockMvc.perform(get(thumbUrl).header("Accept", "image/webp")).andReturn().getResponse().getStatus();
+            if (status == 200)
+                Thread.sleep(100);
+        }
+        assert status == 406;
+    }
+
+    @Test
+    void rawWithInvalidSize_ShouldReturn400() throws Exception {
+        String thumbUrl = uploadAndGetVariant("thumb", 100, 100);
+
+        mockMvc.perform(get(thumbUrl.replace("size=thumb", "size=huge")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void uploadSeveralFiles_ShouldStoreAllInRequestOrder() throws Exception {
+        mockMvc.perform(photoUpload(testEvent, png(10, 10), png(20, 20), png(30, 30))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].originalFilename").value("photo0.png"))
+                .andExpect(jsonPath("$[2].originalFilename").value("photo2.png"));
+        assert photoRepository.count() == 3;
+    }
+
+    @Test
+    void uploadWithContentNotMatchingType_ShouldReturn400AndKeepNothing() throws Exception {
+        byte[] notAPng = "GIF89a definitely not a png".getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(photoUpload(testEvent, png(10, 10), notAPng)
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("File content is not a valid PNG"));
+        assert photoRepository.count() == 0;
+    }
+
+    @Test
+    void uploadOversizedFile_ShouldReturn400WhileStreaming() throws Exception {
+        byte[] huge = Arrays.copyOf(png(1, 1), 11 * 1024 * 1024);
+
+        mockMvc.perform(photoUpload(testEvent, huge)
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("File too large (max 10MB)"));
+        assert photoRepository.count() == 0;
+    }
+
+    @Test
+    void uploadWithUnsupportedType_ShouldReturn400() throws Exception {
+        mockMvc.perform(multipartRequest(testEvent, "image/gif", png(10, 10))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Only JPEG/PNG allowed"));
+    }
+
+    // ==================== Caching Tests ====================
+
+    @Test
+    void raw_ShouldReturnImmutableCacheHeadersAndContentEtag() throws Exception {
+        String url = uploadAndGetUrl(64, 64);
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", matchesPattern("\"[0-9a-f]{64}\"")))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(header().string("Cache-Control", containsString("max-age=31536000")))
+                .andExpect(header().string("Accept-Ranges", "bytes"));
+    }
+
+    @Test
+    void raw_ForPhotoWithoutHash_ShouldServeItAndGetTheHashFromTheBackfill() throws Exception {
+        uploadAndGetUrl(64, 64);
+        Photo photo = photoRepository.findAll().get(0);
+        String hash = photo.getContentHash();
+        photo.setContentHash(null); // as uploaded before hashes were recorded
+        photoRepository.save(photo);
+
+        mockMvc.perform(get("/api/photos/" + photo.getId() + "/raw"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+        assert photoRepository.findById(photo.getId()).orElseThrow().getContentHash() == null; // not on the request path
+
+        assert photoHashBackfill.backfill() == 1;
+        assert hash.equals(photoRepository.findById(photo.getId()).orElseThrow().getContentHash());
+        mockMvc.perform(get("/api/photos/" + photo.getId() + "/raw"))
+                .andExpect(header().string("ETag", "\"" + hash + "\""));
+    }
+
+    @Test
+    void rawWithMatchingIfNoneMatch_ShouldReturn304WithoutBody() throws Exception {
+        String url = uploadAndGetUrl(64, 64);
+        String etag = mockMvc.perform(get(url)).andReturn().getResponse().getHeader("ETag");
+
+        MvcResult result = mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andReturn();
+        assert result.getResponse().getContentLength() == 0;
+    }
+
+    @Test
+    void rawWithRangeHeader_ShouldReturnPartialContent() throws Exception {
+        String url = uploadAndGetUrl(64, 64);
+        byte[] full = mockMvc.perform(get(url)).andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult result = mockMvc.perform(get(url).header("Range", "bytes=0-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 0-9/" + full.length))
+                .andReturn();
+        byte[] part = result.getResponse().getContentAsByteArray();
+        assert Arrays.equals(part, Arrays.copyOf(full, 10));
+    }
+
+    // ==================== Signed URL Tests ====================
+
+    @Test
+    void uploadPhoto_ShouldReturnSignedUrl() throws Exception {
+        String url = uploadAndGetUrl(32, 32);
+        assert url.startsWith("/api/photos/signed/");
+    }
+
+    @Test
+    void signedUrl_ShouldServeWithoutPhotoRow() throws Exception {
+        String url = uploadAndGetUrl(32, 32);
+        // the raw bytes stay on disk; only a DB lookup could notice the row is gone
+        photoRepository.deleteAll();
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"));
+    }
+
+    @Test
+    void signedUrlWithTamperedToken_ShouldReturn403() throws Exception {
+        String url = uploadAndGetUrl(32, 32);
+        String tampered = url.substring(0, url.length() - 2) + (url.endsWith("A") ? "BB" : "AA");
+
+        mockMvc.perform(get(tampered))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void rawById_ShouldStillServePhoto() throws Exception {
+        String url = uploadAndGetUrl(32, 32);
+        String id = photoRepository.findAll().get(0).getId().toString();
+
+        byte[] signed = mockMvc.perform(get(url)).andReturn().getResponse().getContentAsByteArray();
+        byte[] byId = mockMvc.perform(get("/api/photos/" + id + "/raw"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assert Arrays.equals(signed, byId);
+    }
+
+    // ==================== Deduplication Tests ====================
+
+    @Test
+    void uploadSameBytesToTwoEvents_ShouldStoreOneBlob() throws Exception {
+        Event other = eventRepository.save(copyOf(testEvent));
+
+        upload(testEvent, 40, 40);
+        upload(other, 40, 40);
+
+        var photos = photoRepository.findAll();
+        assert photos.size() == 2;
+        assert photos.get(0).getStoragePath().equals(photos.get(1).getStoragePath());
+        assert photoBlobRepository.findById(photos.get(0).getContentHash()).orElseThrow().getRefCount() == 2;
+    }
+
+    @Test
+    void deletePhoto_ShouldKeepSharedFileUntilLastReference() throws Exception {
+        Event other = eventRepository.save(copyOf(testEvent));
+        upload(testEvent, 40, 40);
+        upload(other, 40, 40);
+        var photos = photoRepository.findAll();
+        Path file = Paths.get("test-uploads").resolve(photos.get(0).getStoragePath());
+        String hash = photos.get(0).getContentHash();
+
+        mockMvc.perform(delete("/api/photos/" + photos.get(0).getId())
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isNoContent());
+        assert Files.exists(file);
+        assert photoBlobRepository.findById(hash).orElseThrow().getRefCount() == 1;
+
+        mockMvc.perform(delete("/api/photos/" + photos.get(1).getId())
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isNoContent());
+        assert photoBlobRepository.findById(hash).isEmpty();
+        assert photoDeletionRepository.count() == 1;
+
+        photoReaper.reap();
+        assert !Files.exists(file);
+        assert photoDeletionRepository.count() == 0;
+    }
+
+    @Test
+    void deleteEvent_ShouldReleaseItsPhotoReferences() throws Exception {
+        Event other = eventRepository.save(copyOf(testEvent));
+        upload(testEvent, 40, 40);
+        upload(other, 40, 40);
+        Photo shared = photoRepository.findAll().get(0);
+
+        mockMvc.perform(delete("/api/events/" + other.getId())
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isNoContent());
+
+        photoReaper.reap();
+        assert Files.exists(Paths.get("test-uploads").resolve(shared.getStoragePath()));
+        assert photoBlobRepository.findById(shared.getContentHash()).orElseThrow().getRefCount() == 1;
+    }
+
+    @Test
+    void deleteEvent_ShouldQueueFilesForTheReaper() throws Exception {
+        upload(testEvent, 50, 50);
+        Path file = Paths.get("test-uploads").resolve(photoRepository.findAll().get(0).getStoragePath());
+
+        mockMvc.perform(delete("/api/events/" + testEvent.getId())
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isNoContent());
+        assert Files.exists(file); // the request only queued it
+        assert photoDeletionRepository.count() == 1;
+
+        assert photoReaper.reap() == 1;
+        assert !Files.exists(file);
+        assert photoDeletionRepository.count() == 0;
+    }
+
+    @Test
+    void reconcile_ShouldRemoveOldUnreferencedFilesOnly() throws Exception {
+        upload(testEvent, 60, 60);
+        Path kept = Paths.get("test-uploads").resolve(photoRepository.findAll().get(0).getStoragePath());
+        Path orphan = Paths.get("test-uploads", "orphans", "leaked.png");
+        Path fresh = Paths.get("test-uploads", "orphans", "uploading.png");
+        Files.createDirectories(orphan.getParent());
+        Files.write(orphan, png(5, 5));
+        Files.write(fresh, png(5, 5));
+        FileTime old = FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS));
+        Files.setLastModifiedTime(orphan, old);
+        Files.setLastModifiedTime(kept, old);
+
+        photoReaper.reconcile();
+
+        assert !Files.exists(orphan);
+        assert Files.exists(fresh); // younger than the minimum age: may belong to an upload in progress
+        assert Files.exists(kept);
+        assert photoDeletionRepository.count() == 0;
+    }
+
+    @Test
+    void zip_ShouldContainAllPhotosInUploadOrder() throws Exception {
+        byte[] first = png(10, 10);
+        byte[] second = png(20, 20);
+        mockMvc.perform(photoUpload(testEvent, first, second)
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk());
+
+        MvcResult result = mockMvc.perform(asyncDispatch(zipRequest(get("/api/events/" + testEvent.getId() + "/photos.zip"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/zip"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andReturn();
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assert body.length == Long.parseLong(result.getResponse().getHeader("Content-Length"));
+
+        Path tmp = Files.createTempFile("photos", ".zip");
+        try {
+            Files.write(tmp, body);
+            try (ZipFile zip = new ZipFile(tmp.toFile())) {
+                List<? extends ZipEntry> entries = Collections.list(zip.entries());
+                assert entries.size() == 2;
+                assert entries.get(0).getName().equals("01-photo0.png");
+                assert entries.get(0).getMethod() == ZipEntry.STORED;
+                assert Arrays.equals(zip.getInputStream(entries.get(0)).readAllBytes(), first);
+                assert Arrays.equals(zip.getInputStream(entries.get(1)).readAllBytes(), second);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    void zipWithRangeAndMatchingIfRange_ShouldResumeFromOffset() throws Exception {
+        mockMvc.perform(photoUpload(testEvent, png(30, 30), png(40, 40))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk());
+        String url = "/api/events/" + testEvent.getId() + "/photos.zip";
+        MvcResult full = mockMvc.perform(asyncDispatch(zipRequest(get(url)))).andReturn();
+        byte[] all = full.getResponse().getContentAsByteArray();
+        String etag = full.getResponse().getHeader("ETag");
+
+        MvcResult partial = mockMvc.perform(asyncDispatch(zipRequest(get(url)
+                .header("Range", "bytes=100-")
+                .header("If-Range", etag))))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 100-" + (all.length - 1) + "/" + all.length))
+                .andReturn();
+        assert Arrays.equals(partial.getResponse().getContentAsByteArray(), Arrays.copyOfRange(all, 100, all.length));
+
+        // the archive changed since the first request: send it whole again
+        mockMvc.perform(asyncDispatch(zipRequest(get(url)
+                .header("Range", "bytes=100-")
+                .header("If-Range", "\"stale\""))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void zipWithRangeBeyondEnd_ShouldReturn416() throws Exception {
+        upload(testEvent, 10, 10);
+
+        mockMvc.perform(get("/api/events/" + testEvent.getId() + "/photos.zip")
+                .header("Range", "bytes=99999999-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    // ==================== Feed Tests ====================
+
+    @Test
+    void feed_ShouldPageNewestFirstAcrossApprovedEventsOnly() throws Exception {
+        Event other = eventRepository.save(copyOf(testEvent));
+        Event pending = copyOf(testEvent);
+        pending.setApprovalStatus("PENDING");
+        pending = eventRepository.save(pending);
+        mockMvc.perform(photoUpload(testEvent, png(10, 10), png(11, 11))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk());
+        upload(pending, 12, 12);
+        mockMvc.perform(photoUpload(other, png(13, 13), png(14, 14), png(15, 15))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk());
+
+        MvcResult first = mockMvc.perform(get("/api/photos/feed").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].eventId").value(other.getId().toString()))
+                .andExpect(jsonPath("$[0].url", containsString("/api/photos/signed/")))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+        String cursor = first.getResponse().getHeader("X-Next-Cursor");
+
+        MvcResult second = mockMvc.perform(get("/api/photos/feed").param("limit", "3").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].eventId", everyItem(is(testEvent.getId().toString()))))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andReturn();
+
+        List<Instant> times = new ArrayList<>();
+        for (MvcResult page : List.of(first, second))
+            for (JsonNode p : objectMapper.readTree(page.getResponse().getContentAsString()))
+                times.add(Instant.parse(p.get("createdAt").asText()));
+        List<Instant> newestFirst = new ArrayList<>(times);
+        newestFirst.sort(Collections.reverseOrder());
+        assert newestFirst.equals(times) : times;
+    }
+
+    @Test
+    void feedWithMalformedCursor_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/photos/feed").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ==================== Helper Methods ====================
+
+    private MvcResult zipRequest(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(org.springframework.test.web.servlet.result.MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+    }
+
+    private void upload(Event event, int width, int height) throws Exception {
+        mockMvc.perform(photoUpload(event, png(width, height))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk());
+    }
+
+    private static Event copyOf(Event source) {
+        Event e = new Event();
+        e.setTitle(source.getTitle() + " (again)");
+        e.setDescription(source.getDescription());
+        e.setStartTime(source.getStartTime());
+        e.setLocation(source.getLocation());
+        e.setCategory(source.getCategory());
+        e.setOrganizerEmail(source.getOrganizerEmail());
+        return e;
+    }
+
+    private String uploadAndGetUrl(int width, int height) throws Exception {
+        MvcResult upload = mockMvc.perform(photoUpload(testEvent, png(width, height))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(upload.getResponse().getContentAsString()).get(0).get("url").asText();
+    }
+
+    private String uploadAndGetVariant(String size, int width, int height) throws Exception {
+        MvcResult upload = mockMvc.perform(photoUpload(testEvent, png(width, height))
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode photos = objectMapper.readTree(upload.getResponse().getContentAsString());
+        return photos.get(0).get("variants").get(size).asText();
+    }
+
+    private MvcResult awaitVariant(String url) throws Exception {
+        return awaitVariant(get(url));
+    }
+
+    private MvcResult awaitVariant(MockHttpServletRequestBuilder request) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            if (result.getResponse().getHeader("X-Photo-Pending") == null)
+                return result;
+            Thread.sleep(100);
+        }
+        throw new AssertionError("variant was not generated in time");
+    }
+
+    private String uploadNoisy(String size) throws Exception {
+        BufferedImage img = new BufferedImage(1200, 900, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < img.getHeight(); y++)
+            for (int x = 0; x < img.getWidth(); x++)
+                img.setRGB(x, y, random.nextInt(0xFFFFFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", out);
+        MvcResult upload = mockMvc.perform(photoUpload(testEvent, out.toByteArray())
+                .header("Authorization", "Bearer " + organizerToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(upload.getResponse().getContentAsString()).get(0).get("variants").get(size).asText();
+    }
+
+    private static byte[] jpeg(int width, int height) throws Exception {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpg", out);
+        return out.toByteArray();
+    }
+
+    // inserts a minimal big-endian EXIF APP1 segment holding only the orientation tag
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] app1 = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34, 'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8, // TIFF header, IFD0 at offset 8
+                0, 1, // one entry
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0, // orientation, SHORT, count 1
+                0, 0, 0, 0 // no next IFD
+        };
+        byte[] out = new byte[jpeg.length + app1.length];
+        System.arraycopy(jpeg, 0, out, 0, 2);
+        System.arraycopy(app1, 0, out, 2, app1.length);
+        System.arraycopy(jpeg, 2, out, 2 + app1.length, jpeg.length - 2);
+        return out;
+    }
+
+    private static int indexOf(byte[] data, byte[] needle) {
+        outer:
+        for (int i = 0; i + needle.length <= data.length; i++) {
+            for (int j = 0; j < needle.length; j++)
+                if (data[i + j] != needle[j])
+                    continue outer;
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", out);
+        return out.toByteArray();
+    }
+
+    private static MockHttpServletRequestBuilder photoUpload(Event event, byte[]... files) throws Exception {
+        return multipartRequest(event, "image/png", files);
+    }
+
+    // hand-built multipart body: uploads are parsed from the raw request stream
+    private static MockHttpServletRequestBuilder multipartRequest(Event event, String contentType, byte[]... files)
+            throws Exception {
+        String boundary = "----PhotoApiTestBoundary";
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (int i = 0; i < files.length; i++) {
+            body.write(("--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"files\"; filename=\"photo" + i + ".png\"\r\n"
+                    + "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.write(files[i]);
+            body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return post("/api/events/" + event.getId() + "/photos")
+                .contentType("multipart/form-data; boundary=" + boundary)
+                .content(body.toByteArray());
+    }
+}
@@ -0,0 +1,103 @@
+package au.edu.rmit.sept.webapp.service;
+
+import au.edu.rmit.sept.webapp.model.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The batching audit writer against an in-memory sink. */
+class AuditLogWriterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<List<AuditLog>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    void fireAndForget_ShouldBatchAndDrainOnClose() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter(batches::add, registry, 100, 10, false, 1000);
+        for (int i = 0; i < 25; i++)
+            writer.record(entry("TEST_" + i));
+        writer.close();
+
+        assertEquals(25, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.stream().allMatch(b -> b.size() <= 10));
+        assertEquals("TEST_0", batches.get(0).get(0).getAction()); // queue order kept
+        assertEquals(25.0, registry.counter("audit.written").count());
+    }
+
+    @Test
+    void fireAndForget_WhenQueueIsFull_ShouldDropAndCount() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AuditLogWriter writer = new AuditLogWriter(batch -> {
+            entered.countDown();
+            await(release);
+            batches.add(batch);
+        }, registry, 2, 10, false, 1000);
+
+        writer.record(entry("FIRST"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS)); // writer is busy with it
+        for (int i = 0; i < 3; i++)
+            writer.record(entry("NEXT")); // two fit in the queue
+
+        assertEquals(1.0, registry.counter("audit.dropped").count());
+        assertEquals(2.0, registry.get("audit.queue.depth").gauge().value());
+        release.countDown();
+        writer.close();
+        assertEquals(3, batches.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void waitForWrite_ShouldReturnOnceWritten() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter(batches::add, registry, 100, 10, true, 5000);
+        AuditLog entry = entry("DURABLE");
+        writer.record(entry);
+
+        assertTrue(batches.stream().anyMatch(b -> b.contains(entry)));
+        writer.close();
+    }
+
+    @Test
+    void waitForWrite_RecordAll_ShouldInsertOneBatch() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter(batches::add, registry, 100, 10, true, 5000);
+        writer.recordAll(List.of(entry("BULK"), entry("BULK"), entry("BULK")));
+
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals(3.0, registry.counter("audit.written").count());
+        writer.close();
+    }
+
+    @Test
+    void waitForWrite_WhenInsertFails_ShouldThrow() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter(batch -> {
+            throw new IllegalStateException("database down");
+        }, registry, 100, 10, true, 5000);
+
+        assertThrows(ResponseStatusException.class, () -> writer.record(entry("LOST")));
+        assertEquals(1.0, registry.counter("audit.failed").count());
+        writer.close();
+    }
+
+    private static AuditLog entry(String action) {
+        AuditLog a = new AuditLog();
+        a.setActorUserId(UUID.randomUUID());
+        a.setAction(action);
+        return a;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}